@@ -0,0 +1,84 @@
+package bench.jmh;
+
+import dagsp.*;
+import graph.*;
+import scc.*;
+import topo.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Every stage of the pipeline on every graph shape. SCC and condensation
+ * run on the graph itself; topological sort and DAG paths run on its
+ * condensation, which is acyclic for every shape.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(jvmArgsAppend = "-Xmx4g")
+public class AlgorithmBenchmark {
+    @Param({"10000", "1000000"})
+    public int size;
+
+    @Param({"CHAIN", "LAYERED", "RANDOM", "CLUSTERED"})
+    public GraphShapes.Shape shape;
+
+    private Graph graph;
+    private Components components;
+    private Graph dag;
+    private int[] dagOrder;
+    private int dagSource;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = GraphShapes.build(shape, size, 42);
+        graph.getReverse();
+        components = new TarjanSCC(graph, NoOpMetrics.INSTANCE).findComponents();
+        dag = new CondensationGraph(graph, components).getCondensation();
+        dagOrder = new TopologicalSort(dag, NoOpMetrics.INSTANCE).sortOrder();
+        dagSource = dagOrder[0];
+    }
+
+    @Benchmark
+    public Components tarjanScc() {
+        return new TarjanSCC(graph, NoOpMetrics.INSTANCE).findComponents();
+    }
+
+    @Benchmark
+    public Components parallelScc() {
+        return new ParallelSCC(graph, NoOpMetrics.INSTANCE).findComponents();
+    }
+
+    @Benchmark
+    public Graph condensation() {
+        return new CondensationGraph(graph, components).getCondensation();
+    }
+
+    @Benchmark
+    public int[] topologicalSort() {
+        return new TopologicalSort(dag, NoOpMetrics.INSTANCE).sortOrder();
+    }
+
+    @Benchmark
+    public int[] parallelTopologicalSort() {
+        ParallelTopologicalSort topo = new ParallelTopologicalSort(dag, NoOpMetrics.INSTANCE);
+        topo.sort();
+        return topo.getLevels();
+    }
+
+    @Benchmark
+    public int[] dagShortestPath() {
+        DAGShortestPath sp = new DAGShortestPath(dag, NoOpMetrics.INSTANCE);
+        sp.computeShortestPaths(dagSource);
+        return sp.getDistances();
+    }
+
+    @Benchmark
+    public int[] dagLongestPath() {
+        DAGLongestPath lp = new DAGLongestPath(dag, NoOpMetrics.INSTANCE);
+        lp.computeLongestPaths(dagSource);
+        return lp.getDistances();
+    }
+}
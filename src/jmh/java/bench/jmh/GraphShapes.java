@@ -0,0 +1,86 @@
+package bench.jmh;
+
+import graph.*;
+import java.util.*;
+
+/**
+ * Seeded graphs of the shapes the benchmarks are parameterized over. Edge
+ * density differs per shape; see each constant.
+ */
+public final class GraphShapes {
+    public enum Shape {
+        /**
+         * One long path, the worst case for recursion depth and Kahn's queue.
+         * One edge per node: n - 1 in total.
+         */
+        CHAIN,
+        /**
+         * DAG of layers sqrt(n) wide with edges to the next layer only. Four
+         * edges per node outside the last layer, which has none.
+         */
+        LAYERED,
+        /** Uniform random edges, four per node; mostly one giant SCC. */
+        RANDOM,
+        /**
+         * SCCs of 32 nodes joined by forward edges into a DAG. Four edges per
+         * node: the ring edge closing its cluster plus three random ones.
+         */
+        CLUSTERED
+    }
+
+    private static final int DEGREE = 4;
+    private static final int CLUSTER = 32;
+
+    private GraphShapes() {
+    }
+
+    public static Graph build(Shape shape, int n, long seed) {
+        Random random = new Random(seed);
+        Graph graph = new Graph(n, true);
+        switch (shape) {
+            case CHAIN:
+                for (int u = 0; u + 1 < n; u++) {
+                    graph.addEdge(u, u + 1, 1 + random.nextInt(20));
+                }
+                break;
+            case LAYERED: {
+                int width = Math.max(1, (int) Math.sqrt(n));
+                for (int u = 0; u < n; u++) {
+                    int nextLayer = (u / width + 1) * width;
+                    if (nextLayer >= n) {
+                        continue;
+                    }
+                    int span = Math.min(width, n - nextLayer);
+                    for (int k = 0; k < DEGREE; k++) {
+                        graph.addEdge(u, nextLayer + random.nextInt(span), 1 + random.nextInt(20));
+                    }
+                }
+                break;
+            }
+            case RANDOM:
+                for (int u = 0; u < n; u++) {
+                    for (int k = 0; k < DEGREE; k++) {
+                        graph.addEdge(u, random.nextInt(n), 1 + random.nextInt(20));
+                    }
+                }
+                break;
+            case CLUSTERED:
+                for (int u = 0; u < n; u++) {
+                    int base = u - u % CLUSTER;
+                    int size = Math.min(CLUSTER, n - base);
+                    graph.addEdge(u, base + (u - base + 1) % size, 1 + random.nextInt(20));
+                    for (int k = 1; k < DEGREE; k++) {
+                        int v = random.nextBoolean() || base + size >= n
+                                ? base + random.nextInt(size)
+                                : base + size + random.nextInt(n - base - size);
+                        graph.addEdge(u, v, 1 + random.nextInt(20));
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown shape " + shape);
+        }
+        graph.freeze();
+        return graph;
+    }
+}
@@ -1,20 +1,91 @@
+import analysis.ExternalPipeline;
+import server.GraphQueryServer;
 import dagsp.*;
 import graph.*;
 import scc.*;
 import topo.*;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class Main {
+    private static String sccEngine = "tarjan";
+    private static String topoEngine = "kahn";
+    private static String batchSources = null;
+    private static ResultsLogger.Format resultsFormat = ResultsLogger.Format.CSV;
+    private static int workers = Runtime.getRuntime().availableProcessors();
+    private static int warmups = 0;
+    private static int trials = 1;
+    private static boolean offHeap = false;
+    private static int cacheSize = 256;
+    private static int topK = 0;
+
     public static void main(String[] args) {
+        List<String> positional = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--scc=")) {
+                sccEngine = arg.substring("--scc=".length());
+            } else if (arg.startsWith("--topo=")) {
+                topoEngine = arg.substring("--topo=".length());
+            } else if (arg.equals("--results=jsonl")) {
+                resultsFormat = ResultsLogger.Format.JSON_LINES;
+            } else if (arg.equals("--results=csv")) {
+                resultsFormat = ResultsLogger.Format.CSV;
+            } else if (arg.equals("--offheap")) {
+                offHeap = true;
+            } else if (arg.startsWith("--warmup=")) {
+                warmups = Math.max(0, Integer.parseInt(arg.substring("--warmup=".length())));
+            } else if (arg.startsWith("--trials=")) {
+                trials = Math.max(1, Integer.parseInt(arg.substring("--trials=".length())));
+            } else if (arg.startsWith("--workers=")) {
+                workers = Math.max(1, Integer.parseInt(arg.substring("--workers=".length())));
+            } else if (arg.startsWith("--topk=")) {
+                topK = Math.max(0, Integer.parseInt(arg.substring("--topk=".length())));
+            } else if (arg.startsWith("--cache=")) {
+                cacheSize = Math.max(1, Integer.parseInt(arg.substring("--cache=".length())));
+            } else if (arg.startsWith("--sources=")) {
+                batchSources = arg.substring("--sources=".length());
+            } else {
+                positional.add(arg);
+            }
+        }
+        args = positional.toArray(new String[0]);
 
         if (args.length == 0) {
             args = new String[]{"--all"};
         }
 
-        if (args.length < 1) {
+        if (args.length < 1
+                || !SccAlgorithm.names().contains(sccEngine)
+                || (!topoEngine.equals("kahn") && !topoEngine.equals("parallel"))) {
             System.out.println("Usage:");
             System.out.println("  java Main <json_file>           - Process single file");
             System.out.println("  java Main --all                 - Process all datasets");
+            System.out.println("  java Main --dir <directory>     - Process every .json/.bin file below directory");
+            System.out.println("  java Main --external <bin> <workdir> - Out-of-core SCC, condensation and topo order");
+            System.out.println("  java Main --serve <port> <graph>... - Answer path/component/order queries over HTTP");
+            System.out.println("  java Main --convert <json> <bin> - Convert JSON to binary format");
+            System.out.println("  java Main --generate <shape> <nodes> <edges> <seed> <file> [edge|node]");
+            System.out.println("                                  - Write a synthetic graph (.json or .bin);");
+            System.out.println("                                    shape is layered|planted_scc|chain|power_law");
+            System.out.println("Options:");
+            System.out.println("  --scc=tarjan|kosaraju|gabow|parallel - SCC engine (default tarjan)");
+            System.out.println("  --topo=kahn|parallel            - Topological sort (default kahn)");
+            System.out.println("  --sources=all|<u,v,...>         - Also run batched multi-source paths");
+            System.out.println("  --topk=<k>                      - Also print the k longest chains from the source");
+            System.out.println("  --results=csv|jsonl             - Format of the --all/--dir result files");
+            System.out.println("  --offheap                       - Keep JSON graphs in direct buffers (.bin files are mapped)");
+            System.out.println("  --warmup=<n>                    - Unmeasured runs of each algorithm (default 0)");
+            System.out.println("  --trials=<n>                    - Measured runs; results report min/median/mean/p90/p99/stddev");
+            System.out.println("  --workers=<n>                   - Graphs processed at once by --dir (default: cores)");
+            System.out.println("  --cache=<n>                     - Distance arrays cached per graph by --serve (default 256)");
             return;
         }
 
@@ -24,7 +95,40 @@ public class Main {
                 return;
             }
 
-            processDataset(args[0], null);
+            if (args[0].equals("--dir") && args.length == 2) {
+                processDirectory(args[1]);
+                return;
+            }
+
+            if (args[0].equals("--external") && args.length == 3) {
+                processExternal(args[1], args[2]);
+                return;
+            }
+
+            if (args[0].equals("--serve") && args.length >= 3) {
+                serve(Integer.parseInt(args[1]), Arrays.copyOfRange(args, 2, args.length));
+                return;
+            }
+
+            if (args[0].equals("--convert") && args.length == 3) {
+                BinaryGraphFormat.convert(args[1], args[2]);
+                System.out.println("Wrote " + args[2]);
+                return;
+            }
+
+            if (args[0].equals("--generate") && (args.length == 6 || args.length == 7)) {
+                GraphGenerator generator = new GraphGenerator(
+                        GraphGenerator.Shape.valueOf(args[1].toUpperCase(Locale.ROOT)),
+                        Integer.parseInt(args[2]), Long.parseLong(args[3]), Long.parseLong(args[4]));
+                if (args.length == 7) {
+                    generator.setWeightModel(args[6]);
+                }
+                generator.write(args[5]);
+                System.out.println("Wrote " + args[5]);
+                return;
+            }
+
+            processDataset(args[0], null, System.out);
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -32,8 +136,13 @@ public class Main {
     }
 
     private static void processAllDatasets() {
-        ResultsLogger logger = new ResultsLogger();
-        logger.initializeCSVs();
+        try (ResultsLogger logger = new ResultsLogger(resultsFormat)) {
+            logger.initializeCSVs();
+            processDatasets(logger);
+        }
+    }
+
+    private static void processDatasets(ResultsLogger logger) {
 
         String[] datasets = {
                 "data/small_1.json", "data/small_2.json", "data/small_3.json",
@@ -49,7 +158,7 @@ public class Main {
                 System.out.println("\n" + "=".repeat(60));
                 System.out.println("Processing: " + dataset);
                 System.out.println("=".repeat(60));
-                processDataset(dataset, logger);
+                processDataset(dataset, logger, System.out);
             } else {
                 System.out.println("WARNING: File not found - " + dataset);
             }
@@ -62,94 +171,275 @@ public class Main {
         }
     }
 
-    private static void processDataset(String filename, ResultsLogger logger) {
+    /**
+     * Run the full pipeline for every graph file below directory, one task
+     * per graph on a pool of --workers threads. Each task prints into its own
+     * buffer, and the buffers are written out whole and in file order, so
+     * the output of different graphs never interleaves.
+     */
+    private static void processDirectory(String directory) throws Exception {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(Paths.get(directory))) {
+            files = walk.filter(Files::isRegularFile)
+                    .filter(f -> f.toString().endsWith(".json")
+                            || f.toString().endsWith(BinaryGraphFormat.EXTENSION))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        if (files.isEmpty()) {
+            System.out.println("No graph files found under " + directory);
+            return;
+        }
+
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try (ResultsLogger logger = new ResultsLogger(resultsFormat)) {
+            logger.initializeCSVs();
+
+            List<Future<String>> outputs = new ArrayList<>(files.size());
+            for (Path file : files) {
+                outputs.add(pool.submit(() -> {
+                    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                    PrintStream out = new PrintStream(buffer, false, "UTF-8");
+                    out.println("\n" + "=".repeat(60));
+                    out.println("Processing: " + file);
+                    out.println("=".repeat(60));
+                    processDataset(file.toString(), logger, out);
+                    out.flush();
+                    return buffer.toString("UTF-8");
+                }));
+            }
+            for (int i = 0; i < outputs.size(); i++) {
+                System.out.print(outputs.get(i).get());
+                outputs.set(i, null);
+            }
+
+            logger.printSummary();
+        } finally {
+            pool.shutdown();
+        }
+        System.out.printf(Locale.ROOT, "%nProcessed %d graphs with %d workers in %.1f ms%n",
+                files.size(), workers, (System.nanoTime() - start) / 1_000_000.0);
+    }
+
+    /**
+     * SCC, condensation and topological order of a binary graph with only
+     * O(V) state in memory. The condensation and the results go to workDir.
+     */
+    private static void processExternal(String graphFile, String workDir) throws Exception {
+        ExternalPipeline pipeline = new ExternalPipeline(graphFile, Paths.get(workDir));
+        pipeline.run();
+        pipeline.writeResults();
+
+        System.out.println("SCCs: " + pipeline.getComponents().count()
+                + " (" + pipeline.getSccMetrics() + ")");
+        System.out.println("Condensation: " + pipeline.getCondensationFile()
+                + ", " + pipeline.getCondensationEdges() + " edges");
+        System.out.println(pipeline.getOrder() == null
+                ? "Condensation has a cycle"
+                : "Topological order written (" + pipeline.getTopoMetrics() + ")");
+        System.out.println("SCC passes: " + pipeline.getSccPasses());
+        System.out.println("Blocks read: SCC " + pipeline.getSccBlockReads()
+                + ", condensation " + pipeline.getCondensationBlockReads()
+                + ", order " + pipeline.getTopoBlockReads());
+    }
+
+    /**
+     * Load the graphs once and answer queries until the process is killed.
+     * Requests beyond the first are served from precomputed SCCs and orders.
+     */
+    private static void serve(int port, String[] files) throws Exception {
+        // Read once by the JDK server; see GraphQueryServer
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        GraphQueryServer server = new GraphQueryServer(cacheSize, workers);
+        for (String file : files) {
+            long start = System.nanoTime();
+            Graph graph = loadGraph(file);
+            server.addGraph(datasetName(file), graph);
+            System.out.printf(Locale.ROOT, "Loaded %s: %d nodes, %d edges (%.1f ms)%n",
+                    datasetName(file), graph.getN(), graph.getEdgeCount(),
+                    (System.nanoTime() - start) / 1_000_000.0);
+        }
+        server.start(port);
+        System.out.println("Serving " + server.getGraphNames() + " on http://localhost:" + server.getPort());
+    }
+
+    private static String datasetName(String filename) {
+        return new File(filename).getName()
+                .replace(".json", "").replace(BinaryGraphFormat.EXTENSION, "");
+    }
+
+    private static void processDataset(String filename, ResultsLogger logger, PrintStream out) {
         try {
 
-            Graph graph = Graph.fromJson(filename);
-            String datasetName = new File(filename).getName().replace(".json", "");
+            Graph graph = loadGraph(filename);
+            String datasetName = datasetName(filename);
             int edges = countEdges(graph);
 
-            System.out.println("\nDataset: " + datasetName);
-            System.out.println("Nodes: " + graph.getN() + ", Edges: " + edges);
-            System.out.println("Weight model: " + graph.getWeightModel());
+            out.println("\nDataset: " + datasetName);
+            out.println("Nodes: " + graph.getN() + ", Edges: " + edges);
+            out.println("Weight model: " + graph.getWeightModel());
 
-            // 1. Find SCCs using Tarjan's algorithm
+            // 1. Find SCCs with the selected engine
+            TrialRunner runner = new TrialRunner(warmups, trials);
             MetricsImpl sccMetrics = new MetricsImpl();
-            TarjanSCC tarjan = new TarjanSCC(graph, sccMetrics);
-            var sccs = tarjan.findSCCs();
-            tarjan.printResults();
+            SccAlgorithm scc = SccAlgorithm.create(sccEngine, graph, sccMetrics);
+            TrialRunner.Trial<Components> sccTrial = runner.run(sccMetrics, scc::findComponents);
+            scc.printResults(out);
+            Components components = sccTrial.getResult();
+            printTiming(out, sccTrial);
 
             if (logger != null) {
                 logger.logSCCResults(datasetName, graph.getN(), edges,
-                        "Tarjan", sccs.size(),
+                        scc.getName(), components.count(),
                         sccMetrics.getVisits(), sccMetrics.getEdgeTraversals(),
-                        sccMetrics.getExecutionTimeNanos() / 1_000_000.0);
+                        sccTrial.getStats());
             }
 
-            CondensationGraph condensation = new CondensationGraph(graph, sccs);
+            CondensationGraph condensation = new CondensationGraph(graph, components);
             Graph dag = condensation.getCondensation();
-            System.out.println("\nCondensation graph: " + dag.getN() + " components");
+            out.println("\nCondensation graph: " + dag.getN() + " components");
 
             MetricsImpl topoMetrics = new MetricsImpl();
-            TopologicalSort topo = new TopologicalSort(dag, topoMetrics);
-            var order = topo.sort();
-            topo.printResults(order);
+            TrialRunner.Trial<List<Integer>> topoTrial;
+            String topoAlgorithm;
+            if (topoEngine.equals("parallel")) {
+                ParallelTopologicalSort topo = new ParallelTopologicalSort(dag, topoMetrics);
+                topoTrial = runner.run(topoMetrics, topo::sort);
+                topo.printResults(out, topoTrial.getResult());
+                topoAlgorithm = "ParallelKahn";
+            } else {
+                TopologicalSort topo = new TopologicalSort(dag, topoMetrics);
+                topoTrial = runner.run(topoMetrics, topo::sort);
+                topo.printResults(out, topoTrial.getResult());
+                topoAlgorithm = "Kahn";
+            }
+            List<Integer> order = topoTrial.getResult();
+            printTiming(out, topoTrial);
 
             // Output derived order of original tasks after SCC compression
             if (order != null) {
-                var derivedOrder = TopologicalSort.getDerivedTaskOrder(order, sccs);
-                System.out.println("Derived order of original tasks: " + derivedOrder);
+                var derivedOrder = TopologicalSort.getDerivedTaskOrder(order, components);
+                out.println("Derived order of original tasks: " + derivedOrder);
             }
 
             if (logger != null) {
                 logger.logTopoResults(datasetName, dag.getN(), countEdges(dag),
-                        "Kahn", order != null,
+                        topoAlgorithm, order != null,
                         topoMetrics.getVisits(), topoMetrics.getEdgeTraversals(),
-                        topoMetrics.getExecutionTimeNanos() / 1_000_000.0);
+                        topoTrial.getStats());
             }
 
-            if (order != null && sccs.size() == graph.getN()) {
+            if (order != null && components.count() == graph.getN()) {
                 int source = graph.getSource();
 
                 MetricsImpl spMetrics = new MetricsImpl();
                 DAGShortestPath sp = new DAGShortestPath(graph, spMetrics);
-                sp.computeShortestPaths(source);
-                sp.printResults(source);
+                TrialRunner.Trial<int[]> spTrial = runner.run(spMetrics, () -> {
+                    sp.computeShortestPaths(source);
+                    return sp.getDistances();
+                });
+                sp.printResults(out, source);
+                printTiming(out, spTrial);
 
                 if (logger != null) {
                     logger.logDAGSPResults(datasetName, graph.getN(), edges,
                             "Shortest", source,
                             spMetrics.getVisits(), spMetrics.getEdgeTraversals(),
                             spMetrics.getRelaxations(),
-                            spMetrics.getExecutionTimeNanos() / 1_000_000.0);
+                            spTrial.getStats());
                 }
 
                 MetricsImpl lpMetrics = new MetricsImpl();
                 DAGLongestPath lp = new DAGLongestPath(graph, lpMetrics);
-                lp.computeLongestPaths(source);
-                lp.printResults(source);
+                TrialRunner.Trial<int[]> lpTrial = runner.run(lpMetrics, () -> {
+                    lp.computeLongestPaths(source);
+                    return lp.getDistances();
+                });
+                lp.printResults(out, source);
+                printTiming(out, lpTrial);
+                if (topK > 0) {
+                    printTopChains(out, graph, source);
+                }
 
                 if (logger != null) {
                     logger.logDAGSPResults(datasetName, graph.getN(), edges,
                             "Longest", source,
                             lpMetrics.getVisits(), lpMetrics.getEdgeTraversals(),
                             lpMetrics.getRelaxations(),
-                            lpMetrics.getExecutionTimeNanos() / 1_000_000.0);
+                            lpTrial.getStats());
+                }
+
+                if (batchSources != null) {
+                    printBatchPaths(out, graph, parseSources(batchSources, graph.getN()));
                 }
             } else {
-                System.out.println("\nSkipping shortest/longest path analysis (graph has cycles)");
+                out.println("\nSkipping shortest/longest path analysis (graph has cycles)");
             }
 
         } catch (Exception e) {
-            e.printStackTrace();
+            e.printStackTrace(out);
         }
     }
 
-    private static int countEdges(Graph graph) {
-        int count = 0;
-        for (int i = 0; i < graph.getN(); i++) {
-            count += graph.getEdges(i).size();
+    private static void printTiming(PrintStream out, TrialRunner.Trial<?> trial) {
+        if (trials > 1) {
+            out.println("Timing: " + trial.getStats());
         }
-        return count;
+    }
+
+    private static void printTopChains(PrintStream out, Graph graph, int source) {
+        MetricsImpl kMetrics = new MetricsImpl();
+        KBestPaths kBest = new KBestPaths(graph, kMetrics, MultiSourcePaths.PathType.LONGEST);
+        kBest.compute(source);
+        out.println("\n=== Top " + topK + " critical chains from " + source + " ===");
+        List<KBestPaths.RankedPath> chains = kBest.topPaths(topK);
+        for (int i = 0; i < chains.size(); i++) {
+            out.println("#" + (i + 1) + ": " + chains.get(i));
+        }
+        out.println("Metrics: " + kMetrics);
+    }
+
+    private static int[] parseSources(String spec, int n) {
+        if (spec.equals("all")) {
+            int[] sources = new int[n];
+            for (int i = 0; i < n; i++) {
+                sources[i] = i;
+            }
+            return sources;
+        }
+        return Arrays.stream(spec.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static void printBatchPaths(PrintStream out, Graph graph, int[] sources) {
+        for (MultiSourcePaths.PathType type : MultiSourcePaths.PathType.values()) {
+            MetricsImpl batchMetrics = new MetricsImpl();
+            DistanceMatrix matrix = new MultiSourcePaths(graph, batchMetrics).compute(sources, type);
+
+            out.println("\n=== Batched " + type.name().toLowerCase() + " distances from "
+                    + sources.length + " sources ===");
+            for (int row = 0; row < matrix.getSourceCount(); row++) {
+                StringBuilder line = new StringBuilder("From " + matrix.source(row) + ": [");
+                for (int v = 0; v < matrix.getN(); v++) {
+                    line.append(v == 0 ? "" : ", ")
+                            .append(matrix.isReachable(row, v) ? String.valueOf(matrix.get(row, v)) : "-");
+                }
+                out.println(line.append("]"));
+            }
+            out.println("Metrics: " + batchMetrics);
+        }
+    }
+
+    private static Graph loadGraph(String filename) throws Exception {
+        if (filename.endsWith(BinaryGraphFormat.EXTENSION)) {
+            return BinaryGraphFormat.map(filename);
+        }
+        return offHeap ? Graph.fromJsonOffHeap(filename) : Graph.fromJson(filename);
+    }
+
+    private static int countEdges(Graph graph) {
+        return graph.getEdgeCount();
     }
 }
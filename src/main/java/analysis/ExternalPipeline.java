@@ -0,0 +1,137 @@
+package analysis;
+
+import graph.*;
+import scc.*;
+import topo.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * SCC -> condensation -> topological order for a binary graph file that does
+ * not fit in memory. Only per-node state is held in RAM:
+ *
+ *   - the graph is opened with BinaryGraphFormat.open, so adjacency is read
+ *     from disk through a bounded block cache, and SemiExternalSCC finds the
+ *     components in sequential passes over it. Once the edges left fit in
+ *     about the cache budget they are finished in memory (see
+ *     getSccPasses);
+ *   - the condensation is written to workDir by ExternalCondensation in
+ *     sequential passes over the edges;
+ *   - the condensation file is opened the same way and sorted with the
+ *     unchanged TopologicalSort.
+ *
+ * Components are in Components.canonical numbering, so the mapping,
+ * condensation and order are exactly those of TarjanSCC followed by
+ * canonical(), CondensationGraph and TopologicalSort on the same file.
+ */
+public class ExternalPipeline {
+    public static final String CONDENSATION_FILE = "condensation" + BinaryGraphFormat.EXTENSION;
+    public static final String COMPONENTS_FILE = "components.ints";
+    public static final String ORDER_FILE = "order.ints";
+
+    private String graphFile;
+    private Path workDir;
+    private long cacheBytes = 8L << 20;
+    private int partitionEdges = 1 << 18;
+
+    private MetricsImpl sccMetrics = new MetricsImpl();
+    private MetricsImpl topoMetrics = new MetricsImpl();
+    private Components components;
+    private int[] order;
+    private int condensationEdges;
+
+    private int sccPasses;
+
+    // Blocks read from disk by each stage; a sequential pass over the
+    // targets and weights costs 2 * ceil(4m / BinaryGraphFormat.BLOCK_BYTES),
+    // and an SCC pass reads the targets only
+    private long sccBlockReads;
+    private long condensationBlockReads;
+    private long topoBlockReads;
+
+    public ExternalPipeline(String graphFile, Path workDir) {
+        this.graphFile = graphFile;
+        this.workDir = workDir;
+    }
+
+    /** Heap budget for each open file's block cache. */
+    public ExternalPipeline setCacheBytes(long cacheBytes) {
+        this.cacheBytes = cacheBytes;
+        return this;
+    }
+
+    /** Cross edges per on-disk chunk of the condensation step. */
+    public ExternalPipeline setPartitionEdges(int partitionEdges) {
+        this.partitionEdges = partitionEdges;
+        return this;
+    }
+
+    public void run() throws IOException {
+        Files.createDirectories(workDir);
+        String condensationFile = workDir.resolve(CONDENSATION_FILE).toString();
+
+        Graph graph = BinaryGraphFormat.open(graphFile, cacheBytes);
+        try {
+            // A loaded residual edge costs about 20 bytes; see SemiExternalSCC
+            SemiExternalSCC scc = new SemiExternalSCC(graph, sccMetrics).setResidualEdges(cacheBytes / 20);
+            components = scc.findComponents();
+            sccPasses = scc.getPasses();
+            sccBlockReads = BinaryGraphFormat.getBlockReads(graph);
+            new ExternalCondensation(graph, components, CondensationGraph.WeightPolicy.FIRST, partitionEdges)
+                    .write(condensationFile, workDir);
+            condensationBlockReads = BinaryGraphFormat.getBlockReads(graph) - sccBlockReads;
+        } finally {
+            BinaryGraphFormat.close(graph);
+        }
+
+        Graph dag = BinaryGraphFormat.open(condensationFile, cacheBytes);
+        try {
+            condensationEdges = dag.getEdgeCount();
+            order = new TopologicalSort(dag, topoMetrics).sortOrder();
+            topoBlockReads = BinaryGraphFormat.getBlockReads(dag);
+        } finally {
+            BinaryGraphFormat.close(dag);
+        }
+    }
+
+    /**
+     * Write the component of every node and, if the condensation is acyclic
+     * (it always is unless the input was modified), its order to workDir.
+     */
+    public void writeResults() throws IOException {
+        writeInts(workDir.resolve(COMPONENTS_FILE), components.getComponentOf());
+        if (order != null) {
+            writeInts(workDir.resolve(ORDER_FILE), order);
+        }
+    }
+
+    public Components getComponents() { return components; }
+    public int[] getOrder() { return order; }
+    public int getCondensationEdges() { return condensationEdges; }
+    public Metrics getSccMetrics() { return sccMetrics; }
+    public Metrics getTopoMetrics() { return topoMetrics; }
+    public Path getCondensationFile() { return workDir.resolve(CONDENSATION_FILE); }
+    public int getSccPasses() { return sccPasses; }
+    public long getSccBlockReads() { return sccBlockReads; }
+    public long getCondensationBlockReads() { return condensationBlockReads; }
+    public long getTopoBlockReads() { return topoBlockReads; }
+
+    /** Little-endian int array file, as written by writeResults. */
+    public static void writeInts(Path file, int[] values) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            for (int v : values) {
+                out.writeInt(Integer.reverseBytes(v));
+            }
+        }
+    }
+
+    public static int[] readInts(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        int[] values = new int[buffer.remaining() / 4];
+        buffer.asIntBuffer().get(values);
+        return values;
+    }
+}
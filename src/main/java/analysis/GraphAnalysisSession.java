@@ -0,0 +1,127 @@
+package analysis;
+
+import dagsp.*;
+import graph.*;
+import scc.*;
+import topo.*;
+
+/**
+ * Owns one graph and computes its topological order, SCCs and condensation
+ * lazily, once. Path queries reuse the cached order instead of sorting the
+ * graph again. Every cache is dropped as soon as the graph's version
+ * changes, i.e. after an edge is added. A weight change only drops the
+ * condensation, which copies edge weights; orders and components depend on
+ * the structure alone.
+ *
+ * Safe to share between threads that only read the graph: the cache
+ * accessors are synchronized, and path queries take the cached order under
+ * the lock but run outside it.
+ */
+public class GraphAnalysisSession {
+    private Graph graph;
+    private long version;
+    private long weightVersion;
+    private boolean orderComputed;
+    private int[] topologicalOrder;
+    private Components components;
+    private CondensationGraph condensation;
+    private int[] condensationOrder;
+
+    public GraphAnalysisSession(Graph graph) {
+        this.graph = graph;
+        this.version = graph.getVersion();
+        this.weightVersion = graph.getWeightVersion();
+    }
+
+    public Graph getGraph() { return graph; }
+
+    /** Topological order of the graph, or null if it has a cycle. */
+    public synchronized int[] getTopologicalOrder() {
+        refresh();
+        if (!orderComputed) {
+            topologicalOrder = new TopologicalSort(graph, new MetricsImpl()).sortOrder();
+            orderComputed = true;
+        }
+        return topologicalOrder;
+    }
+
+    public boolean isAcyclic() {
+        return getTopologicalOrder() != null;
+    }
+
+    public synchronized Components getComponents() {
+        refresh();
+        if (components == null) {
+            components = new TarjanSCC(graph, new MetricsImpl()).findComponents();
+        }
+        return components;
+    }
+
+    public synchronized CondensationGraph getCondensation() {
+        refresh();
+        if (condensation == null) {
+            condensation = new CondensationGraph(graph, getComponents());
+        }
+        return condensation;
+    }
+
+    /** Topological order of the condensation DAG (always exists). */
+    public synchronized int[] getCondensationOrder() {
+        refresh();
+        if (condensationOrder == null) {
+            condensationOrder = new TopologicalSort(getCondensation().getCondensation(), new MetricsImpl())
+                    .sortOrder();
+        }
+        return condensationOrder;
+    }
+
+    public DAGShortestPath shortestPaths(int source) {
+        return shortestPaths(source, new MetricsImpl());
+    }
+
+    public DAGShortestPath shortestPaths(int source, Metrics metrics) {
+        int[] order = requireAcyclic();
+        DAGShortestPath sp = new DAGShortestPath(graph, metrics);
+        sp.computeShortestPaths(source, order);
+        return sp;
+    }
+
+    public DAGLongestPath longestPaths(int source) {
+        return longestPaths(source, new MetricsImpl());
+    }
+
+    public DAGLongestPath longestPaths(int source, Metrics metrics) {
+        int[] order = requireAcyclic();
+        DAGLongestPath lp = new DAGLongestPath(graph, metrics);
+        lp.computeLongestPaths(source, order);
+        return lp;
+    }
+
+    /** Drop every cached result, e.g. after changing the graph in a way it cannot see. */
+    public synchronized void invalidate() {
+        orderComputed = false;
+        topologicalOrder = null;
+        components = null;
+        condensation = null;
+        condensationOrder = null;
+        version = graph.getVersion();
+        weightVersion = graph.getWeightVersion();
+    }
+
+    private int[] requireAcyclic() {
+        int[] order = getTopologicalOrder();
+        if (order == null) {
+            throw new IllegalArgumentException("Graph contains a cycle");
+        }
+        return order;
+    }
+
+    private void refresh() {
+        if (graph.getVersion() != version) {
+            invalidate();
+        } else if (graph.getWeightVersion() != weightVersion) {
+            condensation = null;
+            weightVersion = graph.getWeightVersion();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package bench;
+
+import graph.*;
+import scc.*;
+import topo.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Synthetic tasks run by DagExecutor against one thread walking the flat
+ * order from TopologicalSort.getDerivedTaskOrder. Sleeping tasks stand for
+ * I/O-bound work and overlap however many cores there are; spinning tasks
+ * stand for CPU-bound work and overlap only up to the core count.
+ *
+ *   java bench.DagExecutorBenchmark [nodes] [edgesPerNode] [taskMicros] [threads]
+ */
+public class DagExecutorBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int micros = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+        long edges = (long) n * degree;
+
+        Map<String, Graph> shapes = new LinkedHashMap<>();
+        shapes.put("layered DAG", new GraphGenerator(GraphGenerator.Shape.LAYERED, n, edges, 1)
+                .setLayerWidth(100).generate());
+        shapes.put("planted SCCs", new GraphGenerator(GraphGenerator.Shape.PLANTED_SCC, n, edges, 1)
+                .setComponentSize(8).generate());
+
+        Map<String, IntConsumer> tasks = new LinkedHashMap<>();
+        tasks.put("sleeping", v -> sleep(micros));
+        tasks.put("spinning", v -> spin(micros));
+
+        System.out.printf(Locale.ROOT, "%d cores, %d us per task, pool of %d%n",
+                Runtime.getRuntime().availableProcessors(), micros, threads);
+        for (Map.Entry<String, Graph> shape : shapes.entrySet()) {
+            Graph graph = shape.getValue();
+            CondensationGraph condensation = new CondensationGraph(graph,
+                    new TarjanSCC(graph, new MetricsImpl()).findComponents());
+            int[] componentOrder = new TopologicalSort(condensation.getCondensation(), new MetricsImpl()).sortOrder();
+            List<Integer> componentList = new ArrayList<>();
+            for (int c : componentOrder) {
+                componentList.add(c);
+            }
+            List<Integer> flat = TopologicalSort.getDerivedTaskOrder(componentList, condensation.getComponents());
+            System.out.printf(Locale.ROOT, "%s: %d nodes, %d edges, %d components%n",
+                    shape.getKey(), n, graph.getEdgeCount(), condensation.getCondensation().getN());
+
+            for (Map.Entry<String, IntConsumer> task : tasks.entrySet()) {
+                long start = System.nanoTime();
+                for (int v : flat) {
+                    task.getValue().accept(v);
+                }
+                double sequentialMs = (System.nanoTime() - start) / 1e6;
+
+                ExecutorService pool = Executors.newFixedThreadPool(threads);
+                DagExecutor.Report report;
+                try {
+                    report = new DagExecutor(condensation, pool).run(task.getValue());
+                } finally {
+                    pool.shutdown();
+                }
+                System.out.printf(Locale.ROOT, "  %-8s sequential %9.1f ms | executor %9.1f ms (%.1fx), "
+                                + "%.0f tasks/s, critical path %.0f%% of wall, parallelism %.1f, "
+                                + "queueing p50 %.3f / p99 %.3f ms%n",
+                        task.getKey(), sequentialMs, report.getWallMs(), sequentialMs / report.getWallMs(),
+                        report.getThroughput(), 100 * report.getCriticalPathUtilization(),
+                        report.getParallelism(), report.getQueueingDelay().getMedianMs(),
+                        report.getQueueingDelay().getP99Ms());
+            }
+        }
+    }
+
+    private static void sleep(int micros) {
+        try {
+            Thread.sleep(micros / 1000, (micros % 1000) * 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void spin(int micros) {
+        long until = System.nanoTime() + micros * 1000L;
+        while (System.nanoTime() < until) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package bench;
+
+import dagsp.*;
+import graph.*;
+import java.util.*;
+
+/**
+ * Weight changes repaired by DynamicDAGPaths against a full
+ * DAGShortestPath / DAGLongestPath pass per change (the order is reused in
+ * both). Changes hit random edges, so they land anywhere in the order.
+ *
+ *   java bench.DynamicPathsBenchmark [nodes] [edgesPerNode] [updates] [batch]
+ */
+public class DynamicPathsBenchmark {
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 250_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int updates = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+        int batch = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+        long edges = (long) n * degree;
+
+        Map<String, Graph> shapes = new LinkedHashMap<>();
+        shapes.put("layered DAG", new GraphGenerator(GraphGenerator.Shape.LAYERED, n, edges, 1).generate());
+        shapes.put("deep chain", new GraphGenerator(GraphGenerator.Shape.CHAIN, n, edges, 1).generate());
+
+        for (Map.Entry<String, Graph> shape : shapes.entrySet()) {
+            Graph graph = shape.getValue();
+            int m = graph.getEdgeCount();
+            System.out.printf(Locale.ROOT, "%s: %d nodes, %d edges%n", shape.getKey(), n, m);
+
+            for (MultiSourcePaths.PathType type : MultiSourcePaths.PathType.values()) {
+                Random random = new Random(5);
+                DynamicDAGPaths dynamic = new DynamicDAGPaths(graph, new MetricsImpl(), type, 0);
+                int[] order = dynamic.getOrder();
+
+                long affected = 0;
+                long start = System.nanoTime();
+                for (int u = 0; u < updates; u++) {
+                    dynamic.updateWeight(random.nextInt(m), 1 + random.nextInt(100));
+                    affected += dynamic.getLastAffected();
+                }
+                double singleMs = (System.nanoTime() - start) / 1e6 / updates;
+
+                int batches = Math.max(1, updates / batch);
+                int[] batchEdges = new int[batch];
+                int[] batchWeights = new int[batch];
+                long batchAffected = 0;
+                start = System.nanoTime();
+                for (int b = 0; b < batches; b++) {
+                    for (int j = 0; j < batch; j++) {
+                        batchEdges[j] = random.nextInt(m);
+                        batchWeights[j] = 1 + random.nextInt(100);
+                    }
+                    dynamic.updateWeights(batchEdges, batchWeights);
+                    batchAffected += dynamic.getLastAffected();
+                }
+                double batchMs = (System.nanoTime() - start) / 1e6 / batches;
+
+                int full = Math.max(3, updates / 100);
+                start = System.nanoTime();
+                long checksum = 0;
+                for (int r = 0; r < full; r++) {
+                    if (type == MultiSourcePaths.PathType.SHORTEST) {
+                        DAGShortestPath sp = new DAGShortestPath(graph, new MetricsImpl());
+                        sp.computeShortestPaths(0, order);
+                        checksum += sp.getDistances()[n - 1];
+                    } else {
+                        DAGLongestPath lp = new DAGLongestPath(graph, new MetricsImpl());
+                        lp.computeLongestPaths(0, order);
+                        checksum += lp.getDistances()[n - 1];
+                    }
+                }
+                double fullMs = (System.nanoTime() - start) / 1e6 / full;
+                if (checksum != (long) full * dynamic.getDistances()[n - 1]) {
+                    throw new IllegalStateException("Repaired distances differ from a full pass");
+                }
+
+                String name = type.name().toLowerCase(Locale.ROOT);
+                System.out.printf(Locale.ROOT, "  %-8s full pass %8.3f ms | single change %8.4f ms (%.0fx), "
+                                + "%.0f nodes | batch of %d %8.3f ms (%.1fx), %.0f nodes%n",
+                        name, fullMs, singleMs, fullMs / singleMs, (double) affected / updates,
+                        batch, batchMs, fullMs / batchMs, (double) batchAffected / batches);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package bench;
+
+import analysis.*;
+import graph.*;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Disk traffic of ExternalPipeline on a generated graph file much larger
+ * than its block cache. Each stage's block reads are set against one
+ * sequential pass over the targets and weights and against the edge count.
+ * Block reads count the same whether or not the file sits in the page
+ * cache, while every one of them is a disk read once the file outgrows it;
+ * wall times are only meaningful with a cold page cache.
+ *
+ *   java bench.ExternalPipelineBenchmark [nodes] [edgesPerNode] [componentSize] [cacheMB] [shape]
+ */
+public class ExternalPipelineBenchmark {
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int componentSize = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        long cacheBytes = (args.length > 3 ? Long.parseLong(args[3]) : 8) << 20;
+        GraphGenerator.Shape shape = args.length > 4
+                ? GraphGenerator.Shape.valueOf(args[4]) : GraphGenerator.Shape.PLANTED_SCC;
+
+        Path dir = Files.createTempDirectory("external-bench");
+        try {
+            Path graphFile = dir.resolve("graph" + BinaryGraphFormat.EXTENSION);
+            new GraphGenerator(shape, n, (long) n * degree, 1)
+                    .setComponentSize(componentSize)
+                    .writeBinary(graphFile.toString());
+            long m = (long) n * degree;
+            long pass = 2 * ((4 * m + BinaryGraphFormat.BLOCK_BYTES - 1) / BinaryGraphFormat.BLOCK_BYTES);
+            System.out.printf(Locale.ROOT, "%s: %d nodes, %d edges, file %.1f MB, cache %d MB, one pass = %d blocks%n",
+                    shape, n, m, Files.size(graphFile) / 1e6, cacheBytes >> 20, pass);
+
+            ExternalPipeline pipeline = new ExternalPipeline(graphFile.toString(), dir.resolve("work"))
+                    .setCacheBytes(cacheBytes);
+            long start = System.nanoTime();
+            pipeline.run();
+            double ms = (System.nanoTime() - start) / 1e6;
+
+            long condensationPass = 2 * ((4L * pipeline.getCondensationEdges() + BinaryGraphFormat.BLOCK_BYTES - 1)
+                    / BinaryGraphFormat.BLOCK_BYTES);
+            System.out.printf(Locale.ROOT, "%-14s %12s %10s %12s%n", "stage", "block reads", "passes", "reads/edge");
+            print("SCC", pipeline.getSccBlockReads(), pass, m);
+            print("condensation", pipeline.getCondensationBlockReads(), pass, m);
+            print("order", pipeline.getTopoBlockReads(), Math.max(1, condensationPass),
+                    Math.max(1, pipeline.getCondensationEdges()));
+            System.out.printf(Locale.ROOT, "%d SCC passes over the targets%n", pipeline.getSccPasses());
+            System.out.printf(Locale.ROOT, "%d components, %.1f ms in total%n", pipeline.getComponents().count(), ms);
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+            }
+        }
+    }
+
+    private static void print(String stage, long reads, long pass, long edges) {
+        System.out.printf(Locale.ROOT, "%-14s %12d %10.1f %12.4f%n", stage, reads, (double) reads / pass,
+                (double) reads / edges);
+    }
+}
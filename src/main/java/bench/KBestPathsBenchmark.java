@@ -0,0 +1,62 @@
+package bench;
+
+import dagsp.*;
+import graph.*;
+import topo.*;
+import java.util.*;
+
+/**
+ * Top-K chains from KBestPaths against a single DAGLongestPath /
+ * DAGShortestPath run on the same graph and topological order.
+ *
+ *   java bench.KBestPathsBenchmark [nodes] [edgesPerNode] [k] [trials]
+ */
+public class KBestPathsBenchmark {
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 250_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int k = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int trials = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        long edges = (long) n * degree;
+
+        Map<String, Graph> shapes = new LinkedHashMap<>();
+        shapes.put("layered DAG", new GraphGenerator(GraphGenerator.Shape.LAYERED, n, edges, 1).generate());
+        shapes.put("deep chain", new GraphGenerator(GraphGenerator.Shape.CHAIN, n, edges, 1).generate());
+
+        TrialRunner runner = new TrialRunner(3, trials);
+        for (Map.Entry<String, Graph> shape : shapes.entrySet()) {
+            Graph graph = shape.getValue();
+            graph.getReverse();
+            int[] order = new TopologicalSort(graph, new MetricsImpl()).sortOrder();
+            int target = order[order.length - 1];
+            System.out.printf(Locale.ROOT, "%s: %d nodes, %d edges, k = %d%n",
+                    shape.getKey(), n, graph.getEdgeCount(), k);
+
+            MetricsImpl metrics = new MetricsImpl();
+            double single = runner.run(metrics, () -> {
+                DAGLongestPath lp = new DAGLongestPath(graph, metrics);
+                lp.computeLongestPaths(0, order);
+                return lp.findCriticalPath();
+            }).getStats().getMedianMs();
+            System.out.printf(Locale.ROOT, "  %-30s %8.2f ms%n", "single critical path", single);
+
+            for (MultiSourcePaths.PathType type : MultiSourcePaths.PathType.values()) {
+                double chains = runner.run(metrics, () -> {
+                    KBestPaths kBest = new KBestPaths(graph, metrics, type);
+                    kBest.compute(0, order);
+                    return kBest.topPaths(k);
+                }).getStats().getMedianMs();
+                double toTarget = runner.run(metrics, () -> {
+                    KBestPaths kBest = new KBestPaths(graph, metrics, type);
+                    kBest.compute(0, order);
+                    return kBest.paths(target, k);
+                }).getStats().getMedianMs();
+                String name = type.name().toLowerCase(Locale.ROOT);
+                System.out.printf(Locale.ROOT, "  %-30s %8.2f ms (%.1fx)%n",
+                        "top " + k + " " + name + " chains", chains, chains / single);
+                System.out.printf(Locale.ROOT, "  %-30s %8.2f ms (%.1fx)%n",
+                        k + " " + name + " paths to " + target, toTarget, toTarget / single);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package bench;
+
+import dagsp.*;
+import graph.*;
+import scc.*;
+import topo.*;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Instrumentation overhead on a large random graph. Runs Tarjan, Kahn and
+ * DAG shortest paths (which count locally and report once) with each
+ * Metrics implementation, then a bare edge scan that calls the counter once
+ * per edge, which is what every loop did before local batching. "batched"
+ * is BatchingMetrics over ConcurrentMetrics: per-event calls with local
+ * batching supplied by the Metrics instead of the loop.
+ *
+ *   java bench.MetricsOverheadBenchmark [nodes] [edgesPerNode] [rounds]
+ */
+public class MetricsOverheadBenchmark {
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        Random random = new Random(13);
+
+        Graph graph = new Graph(n, true);
+        for (int u = 0; u + 1 < n; u++) {
+            for (int k = 0; k < degree; k++) {
+                graph.addEdge(u, u + 1 + random.nextInt(Math.min(256, n - u - 1)), 1 + random.nextInt(20));
+            }
+        }
+        graph.freeze();
+        int[] order = new TopologicalSort(graph, NoOpMetrics.INSTANCE).sortOrder();
+
+        Map<String, Supplier<Metrics>> modes = new LinkedHashMap<>();
+        modes.put("no-op", () -> NoOpMetrics.INSTANCE);
+        modes.put("plain", MetricsImpl::new);
+        modes.put("concurrent", ConcurrentMetrics::new);
+        modes.put("batched", () -> new BatchingMetrics(new ConcurrentMetrics()));
+
+        System.out.printf(Locale.ROOT, "Nodes: %d, edges: %d, best of %d rounds%n", n, graph.getEdgeCount(), rounds);
+        System.out.printf(Locale.ROOT, "%-12s %10s %10s %10s %14s%n",
+                "Mode", "Tarjan ms", "Kahn ms", "DAG-SP ms", "per-event ms");
+
+        for (Map.Entry<String, Supplier<Metrics>> mode : modes.entrySet()) {
+            double tarjan = Double.MAX_VALUE, kahn = Double.MAX_VALUE, sp = Double.MAX_VALUE, perEvent = Double.MAX_VALUE;
+            for (int r = 0; r < rounds; r++) {
+                long start = System.nanoTime();
+                new TarjanSCC(graph, mode.getValue().get()).findComponents();
+                tarjan = Math.min(tarjan, (System.nanoTime() - start) / 1e6);
+
+                start = System.nanoTime();
+                new TopologicalSort(graph, mode.getValue().get()).sortOrder();
+                kahn = Math.min(kahn, (System.nanoTime() - start) / 1e6);
+
+                start = System.nanoTime();
+                new DAGShortestPath(graph, mode.getValue().get()).computeShortestPaths(0, order);
+                sp = Math.min(sp, (System.nanoTime() - start) / 1e6);
+
+                Metrics metrics = mode.getValue().get();
+                start = System.nanoTime();
+                scanPerEvent(graph, metrics);
+                perEvent = Math.min(perEvent, (System.nanoTime() - start) / 1e6);
+            }
+            System.out.printf(Locale.ROOT, "%-12s %10.1f %10.1f %10.1f %14.1f%n",
+                    mode.getKey(), tarjan, kahn, sp, perEvent);
+        }
+    }
+
+    private static long scanPerEvent(Graph graph, Metrics metrics) {
+        long sum = 0;
+        for (int u = 0; u < graph.getN(); u++) {
+            metrics.incrementVisits();
+            for (int i = graph.edgeStart(u), end = graph.edgeEnd(u); i < end; i++) {
+                metrics.incrementEdgeTraversals();
+                sum += graph.target(i);
+            }
+        }
+        return sum;
+    }
+}
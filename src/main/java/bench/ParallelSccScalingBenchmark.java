@@ -0,0 +1,82 @@
+package bench;
+
+import graph.*;
+import scc.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Speedup curve of ParallelSCC over pool sizes on the shape it is built
+ * for: one giant SCC holding most nodes plus a tail of singletons that only
+ * have forward edges among themselves. Times are medians; speedup is given
+ * against the same engine on one worker and against sequential Tarjan.
+ * Pools larger than the core count only measure scheduling overhead.
+ *
+ *   java bench.ParallelSccScalingBenchmark [nodes] [edgesPerNode] [giantPercent] [maxThreads] [trials]
+ */
+public class ParallelSccScalingBenchmark {
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int giantPercent = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        int cores = Runtime.getRuntime().availableProcessors();
+        int maxThreads = args.length > 3 ? Integer.parseInt(args[3]) : Math.max(32, cores);
+        int trials = args.length > 4 ? Integer.parseInt(args[4]) : 5;
+
+        Graph graph = giantPlusSingletons(n, degree, (int) ((long) n * giantPercent / 100), 1);
+        graph.getReverse();
+        System.out.printf(Locale.ROOT, "%d nodes, %d edges, giant SCC of %d%%, %d cores%n",
+                n, graph.getEdgeCount(), giantPercent, cores);
+
+        TrialRunner runner = new TrialRunner(2, trials);
+        MetricsImpl tarjanMetrics = new MetricsImpl();
+        TarjanSCC tarjan = new TarjanSCC(graph, tarjanMetrics);
+        TrialRunner.Trial<Components> baseline = runner.run(tarjanMetrics, tarjan::findComponents);
+        double tarjanMs = baseline.getStats().getMedianMs();
+        int expected = baseline.getResult().count();
+        System.out.printf(Locale.ROOT, "Tarjan: %.2f ms, %d components%n", tarjanMs, expected);
+
+        System.out.printf(Locale.ROOT, "%8s %12s %12s %12s%n", "threads", "median ms", "vs 1 thread", "vs Tarjan");
+        double oneThreadMs = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                MetricsImpl metrics = new MetricsImpl();
+                ParallelSCC parallel = new ParallelSCC(graph, metrics, pool);
+                TrialRunner.Trial<Components> trial = runner.run(metrics, parallel::findComponents);
+                double ms = trial.getStats().getMedianMs();
+                if (trial.getResult().count() != expected) {
+                    throw new IllegalStateException("ParallelSCC found a different number of components");
+                }
+                if (threads == 1) {
+                    oneThreadMs = ms;
+                }
+                System.out.printf(Locale.ROOT, "%8d %12.2f %11.2fx %11.2fx%n",
+                        threads, ms, oneThreadMs / ms, tarjanMs / ms);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    // Ring over [0, giant) closes the giant SCC; the other edges are random,
+    // oriented forward when both ends are in the tail so the tail stays acyclic
+    static Graph giantPlusSingletons(int n, int degree, int giant, long seed) {
+        Random random = new Random(seed);
+        Graph graph = new Graph(n, true);
+        for (int i = 0; i < giant; i++) {
+            graph.addEdge(i, (i + 1) % giant, 1);
+        }
+        for (long e = (long) n * degree - giant; e > 0; e--) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(n);
+            if (u >= giant && v >= giant && u > v) {
+                graph.addEdge(v, u, 1);
+            } else {
+                graph.addEdge(u, v, 1);
+            }
+        }
+        graph.freeze();
+        return graph;
+    }
+}
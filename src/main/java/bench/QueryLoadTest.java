@@ -0,0 +1,120 @@
+package bench;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import graph.*;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Closed-loop load against a running GraphQueryServer: each client thread
+ * sends its next query as soon as the previous reply arrives. The mix is
+ * shortest and longest path queries to a random target from a small set of
+ * sources (so the distance cache gets hits) plus component lookups; path
+ * queries are skipped for cyclic graphs. Reports latency percentiles and
+ * throughput.
+ *
+ *   java bench.QueryLoadTest <url> <graph> [requests] [clients] [sources] [seed]
+ */
+public class QueryLoadTest {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: java bench.QueryLoadTest <url> <graph> [requests] [clients] [sources] [seed]");
+            return;
+        }
+        String url = args[0].endsWith("/") ? args[0].substring(0, args[0].length() - 1) : args[0];
+        String graphName = args[1];
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        int clients = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        int sourceCount = args.length > 4 ? Integer.parseInt(args[4]) : 64;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 42;
+
+        HttpClient http = HttpClient.newBuilder()
+                // The h2c upgrade attempt can stall against the JDK server under load
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newFixedThreadPool(clients))
+                .build();
+        JsonObject info = findGraph(http, url, graphName);
+        int n = info.get("nodes").getAsInt();
+        boolean acyclic = info.get("acyclic").getAsBoolean();
+
+        Random random = new Random(seed);
+        int[] sources = new int[Math.max(1, sourceCount)];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = random.nextInt(n);
+        }
+        String[] paths = new String[requests];
+        for (int i = 0; i < requests; i++) {
+            int kind = acyclic ? random.nextInt(3) : 2;
+            String graphParam = "graph=" + graphName;
+            if (kind == 2) {
+                paths[i] = "/component?" + graphParam + "&node=" + random.nextInt(n);
+            } else {
+                paths[i] = (kind == 0 ? "/shortest?" : "/longest?") + graphParam
+                        + "&source=" + sources[random.nextInt(sources.length)]
+                        + "&target=" + random.nextInt(n);
+            }
+        }
+
+        long[] latencies = new long[requests];
+        int[] errors = new int[clients];
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long start = System.nanoTime();
+        List<Future<?>> done = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            done.add(pool.submit(() -> {
+                for (int i = client; i < requests; i += clients) {
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(url + paths[i])).build();
+                    long t0 = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+                        if (response.statusCode() != 200) {
+                            errors[client]++;
+                        }
+                    } catch (Exception e) {
+                        errors[client]++;
+                    }
+                    latencies[i] = System.nanoTime() - t0;
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : done) {
+            f.get();
+        }
+        double elapsedMs = (System.nanoTime() - start) / 1_000_000.0;
+        pool.shutdown();
+
+        TimingStats stats = TimingStats.of(latencies);
+        info = findGraph(http, url, graphName);
+        ((ExecutorService) http.executor().get()).shutdown();
+        System.out.printf(Locale.ROOT, "Graph: %s (%d nodes, %s)%n", graphName, n, acyclic ? "DAG" : "cyclic");
+        System.out.printf(Locale.ROOT, "Requests: %d from %d clients in %.1f ms (%.0f req/s), errors: %d%n",
+                requests, clients, elapsedMs, requests / (elapsedMs / 1000.0), Arrays.stream(errors).sum());
+        System.out.printf(Locale.ROOT, "Latency: p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                stats.getMedianMs(), stats.getP90Ms(), stats.getP99Ms(),
+                Arrays.stream(latencies).max().getAsLong() / 1e6);
+        System.out.println("Server distance cache: " + info.get("cacheHits") + " hits, "
+                + info.get("cacheMisses") + " misses");
+    }
+
+    private static JsonObject findGraph(HttpClient http, String url, String name) throws Exception {
+        HttpResponse<String> response = http.send(
+                HttpRequest.newBuilder(URI.create(url + "/graphs")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        JsonArray graphs = JsonParser.parseString(response.body()).getAsJsonArray();
+        for (JsonElement g : graphs) {
+            if (g.getAsJsonObject().get("name").getAsString().equals(name)) {
+                return g.getAsJsonObject();
+            }
+        }
+        throw new IllegalArgumentException("Server has no graph named " + name);
+    }
+}
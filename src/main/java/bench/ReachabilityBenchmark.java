@@ -0,0 +1,106 @@
+package bench;
+
+import graph.*;
+import scc.*;
+import java.util.*;
+
+/**
+ * Random reachability queries answered by ReachabilityIndex against a BFS
+ * over the original graph per query. The index answers every query; BFS
+ * answers the first bfsQueries of them (it is orders of magnitude slower)
+ * and those answers are checked against the index.
+ *
+ *   java bench.ReachabilityBenchmark [nodes] [edgesPerNode] [queries] [bfsQueries]
+ */
+public class ReachabilityBenchmark {
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int queries = args.length > 2 ? Integer.parseInt(args[2]) : 5_000_000;
+        int bfsQueries = args.length > 3 ? Integer.parseInt(args[3]) : 2_000;
+        long edges = (long) n * degree;
+
+        Map<String, Graph> shapes = new LinkedHashMap<>();
+        shapes.put("small SCCs", new GraphGenerator(GraphGenerator.Shape.PLANTED_SCC, n, edges, 1)
+                .setComponentSize(4).generate());
+        shapes.put("layered DAG", new GraphGenerator(GraphGenerator.Shape.LAYERED, n, edges, 1).generate());
+        shapes.put("few large SCCs", new GraphGenerator(GraphGenerator.Shape.PLANTED_SCC, n, edges, 1)
+                .setComponentSize(Math.max(1, n / 2000)).generate());
+
+        for (Map.Entry<String, Graph> shape : shapes.entrySet()) {
+            Graph graph = shape.getValue();
+            Components components = new TarjanSCC(graph, new MetricsImpl()).findComponents();
+            CondensationGraph condensation = new CondensationGraph(graph, components);
+
+            long start = System.nanoTime();
+            ReachabilityIndex index = new ReachabilityIndex(condensation);
+            double buildMs = (System.nanoTime() - start) / 1e6;
+
+            Random random = new Random(7);
+            int[] from = new int[queries];
+            int[] to = new int[queries];
+            for (int q = 0; q < queries; q++) {
+                from[q] = random.nextInt(n);
+                to[q] = random.nextInt(n);
+            }
+
+            // One warm-up pass, then the measured one
+            int positive = 0;
+            for (int pass = 0; pass < 2; pass++) {
+                positive = 0;
+                start = System.nanoTime();
+                for (int q = 0; q < queries; q++) {
+                    if (index.reaches(from[q], to[q])) {
+                        positive++;
+                    }
+                }
+            }
+            double indexNs = (double) (System.nanoTime() - start) / queries;
+
+            int checked = Math.min(queries, bfsQueries);
+            int[] seenBy = new int[n];
+            int[] queue = new int[n];
+            start = System.nanoTime();
+            for (int q = 0; q < checked; q++) {
+                if (bfs(graph, from[q], to[q], q + 1, seenBy, queue) != index.reaches(from[q], to[q])) {
+                    throw new IllegalStateException("Index disagrees with BFS for "
+                            + from[q] + " -> " + to[q]);
+                }
+            }
+            double bfsNs = (double) (System.nanoTime() - start) / checked;
+
+            System.out.printf(Locale.ROOT, "%s: %d nodes, %d components, %d condensation edges%n",
+                    shape.getKey(), n, components.count(), condensation.getCondensation().getEdgeCount());
+            System.out.printf(Locale.ROOT, "  index: %s, %.1f MB, built in %.1f ms%n",
+                    index.isClosure() ? "closure" : "GRAIL", index.getSizeBytes() / 1e6, buildMs);
+            System.out.printf(Locale.ROOT, "  %d queries: %.0f ns/query, %.2f%% reachable, %d fallback searches%n",
+                    queries, indexNs, 100.0 * positive / queries, index.getFallbacks() / 2);
+            System.out.printf(Locale.ROOT, "  BFS (%d queries): %.0f ns/query, %.0fx slower%n",
+                    checked, bfsNs, bfsNs / indexNs);
+        }
+    }
+
+    private static boolean bfs(Graph graph, int s, int t, int stamp, int[] seenBy, int[] queue) {
+        if (s == t) {
+            return true;
+        }
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = s;
+        seenBy[s] = stamp;
+        while (head < tail) {
+            int u = queue[head++];
+            for (int i = graph.edgeStart(u), end = graph.edgeEnd(u); i < end; i++) {
+                int v = graph.target(i);
+                if (v == t) {
+                    return true;
+                }
+                if (seenBy[v] != stamp) {
+                    seenBy[v] = stamp;
+                    queue[tail++] = v;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,48 @@
+package bench;
+
+import graph.*;
+import scc.*;
+import java.util.*;
+
+/**
+ * Median time of every SCC strategy on deep chains, dense clusters and
+ * mostly-acyclic layered graphs from GraphGenerator.
+ *
+ *   java bench.SccStrategyBenchmark [nodes] [edgesPerNode] [trials]
+ */
+public class SccStrategyBenchmark {
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int trials = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        long edges = (long) n * degree;
+
+        Map<String, Graph> shapes = new LinkedHashMap<>();
+        shapes.put("deep chain", new GraphGenerator(GraphGenerator.Shape.CHAIN, n, edges, 1).generate());
+        shapes.put("dense clusters", new GraphGenerator(GraphGenerator.Shape.PLANTED_SCC, n, edges, 1)
+                .setComponentSize(1024).generate());
+        shapes.put("mostly acyclic", new GraphGenerator(GraphGenerator.Shape.PLANTED_SCC, n, edges, 1)
+                .setComponentSize(2).generate());
+        shapes.put("layered DAG", new GraphGenerator(GraphGenerator.Shape.LAYERED, n, edges, 1).generate());
+
+        TrialRunner runner = new TrialRunner(3, trials);
+        System.out.printf(Locale.ROOT, "%-16s", "median ms");
+        for (String name : SccAlgorithm.names()) {
+            System.out.printf(Locale.ROOT, "%12s", name);
+        }
+        System.out.println();
+
+        for (Map.Entry<String, Graph> shape : shapes.entrySet()) {
+            Graph graph = shape.getValue();
+            graph.getReverse();
+            System.out.printf(Locale.ROOT, "%-16s", shape.getKey());
+            for (String name : SccAlgorithm.names()) {
+                MetricsImpl metrics = new MetricsImpl();
+                SccAlgorithm scc = SccAlgorithm.create(name, graph, metrics);
+                TimingStats stats = runner.run(metrics, scc::findComponents).getStats();
+                System.out.printf(Locale.ROOT, "%12.2f", stats.getMedianMs());
+            }
+            System.out.println();
+        }
+    }
+}
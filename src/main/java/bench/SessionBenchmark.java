@@ -0,0 +1,63 @@
+package bench;
+
+import analysis.*;
+import dagsp.*;
+import graph.*;
+import java.util.*;
+
+/**
+ * Shortest and longest paths from many sources: fresh DAGShortestPath /
+ * DAGLongestPath per query (each sorts the graph) against one
+ * GraphAnalysisSession that sorts once.
+ *
+ *   java bench.SessionBenchmark [nodes] [edgesPerNode] [sources]
+ */
+public class SessionBenchmark {
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int sources = args.length > 2 ? Integer.parseInt(args[2]) : 1_000;
+        Random random = new Random(11);
+
+        // Forward edges only (u < v), so the graph is a DAG
+        Graph graph = new Graph(n, true);
+        for (int u = 0; u + 1 < n; u++) {
+            for (int k = 0; k < degree; k++) {
+                int v = u + 1 + random.nextInt(Math.min(256, n - u - 1));
+                graph.addEdge(u, v, 1 + random.nextInt(20));
+            }
+        }
+        graph.freeze();
+
+        int[] queries = new int[sources];
+        for (int i = 0; i < sources; i++) {
+            queries[i] = random.nextInt(n);
+        }
+
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int s : queries) {
+            DAGShortestPath sp = new DAGShortestPath(graph, new MetricsImpl());
+            sp.computeShortestPaths(s);
+            DAGLongestPath lp = new DAGLongestPath(graph, new MetricsImpl());
+            lp.computeLongestPaths(s);
+            checksum += sp.getDistances()[n - 1] + lp.getDistances()[n - 1];
+        }
+        double freshMs = (System.nanoTime() - start) / 1_000_000.0;
+
+        start = System.nanoTime();
+        GraphAnalysisSession session = new GraphAnalysisSession(graph);
+        for (int s : queries) {
+            checksum -= session.shortestPaths(s).getDistances()[n - 1]
+                    + session.longestPaths(s).getDistances()[n - 1];
+        }
+        double sessionMs = (System.nanoTime() - start) / 1_000_000.0;
+
+        if (checksum != 0) {
+            throw new IllegalStateException("Session results differ from fresh runs");
+        }
+        System.out.printf(Locale.ROOT, "Nodes: %d, edges: %d, sources: %d%n", n, graph.getEdgeCount(), sources);
+        System.out.printf(Locale.ROOT, "Fresh per query: %.1f ms%n", freshMs);
+        System.out.printf(Locale.ROOT, "Cached session:  %.1f ms%n", sessionMs);
+    }
+}
@@ -2,6 +2,7 @@ package dagsp;
 
 import graph.*;
 import topo.TopologicalSort;
+import java.io.PrintStream;
 import java.util.*;
 
 public class DAGLongestPath {
@@ -20,37 +21,59 @@ public class DAGLongestPath {
     public void computeLongestPaths(int source) {
         metrics.startTimer();
 
-        Arrays.fill(dist, Integer.MIN_VALUE);
-        Arrays.fill(parent, -1);
-        dist[source] = 0;
-
         MetricsImpl topoMetrics = new MetricsImpl();
         TopologicalSort topo = new TopologicalSort(graph, topoMetrics);
-        List<Integer> order = topo.sort();
+        int[] order = topo.sortOrder();
 
         if (order == null) {
             throw new IllegalArgumentException("Graph contains a cycle");
         }
 
+        relax(source, order);
+        metrics.stopTimer();
+    }
+
+    /**
+     * Same as computeLongestPaths(source), reusing a topological order of the
+     * graph computed earlier instead of sorting again.
+     */
+    public void computeLongestPaths(int source, int[] order) {
+        metrics.startTimer();
+        relax(source, order);
+        metrics.stopTimer();
+    }
+
+    private void relax(int source, int[] order) {
+        Arrays.fill(dist, Integer.MIN_VALUE);
+        Arrays.fill(parent, -1);
+        dist[source] = 0;
+
+        // Counted locally and reported once, keeping the inner loop free of calls
+        long visits = 0;
+        long edgeTraversals = 0;
+        long relaxations = 0;
+
         for (int u : order) {
             if (dist[u] != Integer.MIN_VALUE) {
-                metrics.incrementVisits();
+                visits++;
 
-                for (Graph.Edge edge : graph.getEdges(u)) {
-                    int v = edge.to;
-                    int weight = edge.weight;
-                    metrics.incrementEdgeTraversals();
+                for (int i = graph.edgeStart(u), end = graph.edgeEnd(u); i < end; i++) {
+                    int v = graph.target(i);
+                    int weight = graph.weight(i);
+                    edgeTraversals++;
 
                     if (dist[u] + weight > dist[v]) {
                         dist[v] = dist[u] + weight;
                         parent[v] = u;
-                        metrics.incrementRelaxations();
+                        relaxations++;
                     }
                 }
             }
         }
 
-        metrics.stopTimer();
+        metrics.addVisits(visits);
+        metrics.addEdgeTraversals(edgeTraversals);
+        metrics.addRelaxations(relaxations);
     }
 
     public int[] getDistances() { return dist; }
@@ -87,22 +110,26 @@ public class DAGLongestPath {
     }
 
     public void printResults(int source) {
-        System.out.println("\n=== Longest Paths (Critical Path) from " + source + " ===");
+        printResults(System.out, source);
+    }
+
+    public void printResults(PrintStream out, int source) {
+        out.println("\n=== Longest Paths (Critical Path) from " + source + " ===");
 
         int[] critical = findCriticalPath();
         if (critical != null) {
             List<Integer> path = reconstructPath(critical[1]);
-            System.out.println("Critical Path: " + path);
-            System.out.println("Critical Path Length: " + critical[0]);
+            out.println("Critical Path: " + path);
+            out.println("Critical Path Length: " + critical[0]);
         }
 
-        System.out.println("\nAll longest paths:");
+        out.println("\nAll longest paths:");
         for (int i = 0; i < graph.getN(); i++) {
             if (dist[i] != Integer.MIN_VALUE) {
                 List<Integer> path = reconstructPath(i);
-                System.out.println("To " + i + ": distance = " + dist[i] + ", path = " + path);
+                out.println("To " + i + ": distance = " + dist[i] + ", path = " + path);
             }
         }
-        System.out.println("Metrics: " + metrics);
+        out.println("Metrics: " + metrics);
     }
 }
\ No newline at end of file
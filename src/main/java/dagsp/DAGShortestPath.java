@@ -2,6 +2,7 @@ package dagsp;
 
 import graph.*;
 import topo.TopologicalSort;
+import java.io.PrintStream;
 import java.util.*;
 
 public class DAGShortestPath {
@@ -20,37 +21,59 @@ public class DAGShortestPath {
     public void computeShortestPaths(int source) {
         metrics.startTimer();
 
-        Arrays.fill(dist, Integer.MAX_VALUE);
-        Arrays.fill(parent, -1);
-        dist[source] = 0;
-
         MetricsImpl topoMetrics = new MetricsImpl();
         TopologicalSort topo = new TopologicalSort(graph, topoMetrics);
-        List<Integer> order = topo.sort();
+        int[] order = topo.sortOrder();
 
         if (order == null) {
             throw new IllegalArgumentException("Graph contains a cycle");
         }
 
+        relax(source, order);
+        metrics.stopTimer();
+    }
+
+    /**
+     * Same as computeShortestPaths(source), reusing a topological order of the
+     * graph computed earlier instead of sorting again.
+     */
+    public void computeShortestPaths(int source, int[] order) {
+        metrics.startTimer();
+        relax(source, order);
+        metrics.stopTimer();
+    }
+
+    private void relax(int source, int[] order) {
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        Arrays.fill(parent, -1);
+        dist[source] = 0;
+
+        // Counted locally and reported once, keeping the inner loop free of calls
+        long visits = 0;
+        long edgeTraversals = 0;
+        long relaxations = 0;
+
         for (int u : order) {
             if (dist[u] != Integer.MAX_VALUE) {
-                metrics.incrementVisits();
+                visits++;
 
-                for (Graph.Edge edge : graph.getEdges(u)) {
-                    int v = edge.to;
-                    int weight = edge.weight;
-                    metrics.incrementEdgeTraversals();
+                for (int i = graph.edgeStart(u), end = graph.edgeEnd(u); i < end; i++) {
+                    int v = graph.target(i);
+                    int weight = graph.weight(i);
+                    edgeTraversals++;
 
                     if (dist[u] + weight < dist[v]) {
                         dist[v] = dist[u] + weight;
                         parent[v] = u;
-                        metrics.incrementRelaxations();
+                        relaxations++;
                     }
                 }
             }
         }
 
-        metrics.stopTimer();
+        metrics.addVisits(visits);
+        metrics.addEdgeTraversals(edgeTraversals);
+        metrics.addRelaxations(relaxations);
     }
 
     public int[] getDistances() { return dist; }
@@ -70,15 +93,19 @@ public class DAGShortestPath {
     }
 
     public void printResults(int source) {
-        System.out.println("\n=== Shortest Paths from " + source + " ===");
+        printResults(System.out, source);
+    }
+
+    public void printResults(PrintStream out, int source) {
+        out.println("\n=== Shortest Paths from " + source + " ===");
         for (int i = 0; i < graph.getN(); i++) {
             if (dist[i] == Integer.MAX_VALUE) {
-                System.out.println("To " + i + ": unreachable");
+                out.println("To " + i + ": unreachable");
             } else {
                 List<Integer> path = reconstructPath(i);
-                System.out.println("To " + i + ": distance = " + dist[i] + ", path = " + path);
+                out.println("To " + i + ": distance = " + dist[i] + ", path = " + path);
             }
         }
-        System.out.println("Metrics: " + metrics);
+        out.println("Metrics: " + metrics);
     }
 }
\ No newline at end of file
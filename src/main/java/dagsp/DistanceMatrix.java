@@ -0,0 +1,42 @@
+package dagsp;
+
+import java.util.*;
+
+/**
+ * Distances from a list of sources to every node, one row per source,
+ * stored row-major in a single int array.
+ */
+public class DistanceMatrix {
+    private int[] sources;
+    private int n;
+    private int unreachable;
+    private int[] data;
+
+    public DistanceMatrix(int[] sources, int n, int unreachable) {
+        this.sources = sources;
+        this.n = n;
+        this.unreachable = unreachable;
+        this.data = new int[Math.multiplyExact(sources.length, n)];
+    }
+
+    public int getSourceCount() { return sources.length; }
+    public int getN() { return n; }
+    public int source(int row) { return sources[row]; }
+    public int[] getSources() { return sources; }
+
+    /** Value stored for targets a source cannot reach. */
+    public int getUnreachable() { return unreachable; }
+
+    public int get(int row, int target) { return data[row * n + target]; }
+
+    public boolean isReachable(int row, int target) {
+        return data[row * n + target] != unreachable;
+    }
+
+    public int[] row(int row) {
+        return Arrays.copyOfRange(data, row * n, row * n + n);
+    }
+
+    // Raw storage for the solver that fills it
+    int[] data() { return data; }
+}
@@ -0,0 +1,232 @@
+package dagsp;
+
+import graph.*;
+import topo.TopologicalSort;
+import java.util.*;
+
+/**
+ * Shortest or longest distances from one source in a DAG, kept up to date
+ * while edge weights change. The topological order does not depend on the
+ * weights, so it is computed once. After a batch of changes only the heads
+ * of the changed edges are re-relaxed, in topological-position order from
+ * the earliest one: a node's distance is recomputed from its in-edges, and
+ * its successors are queued only if the distance changed. The work is
+ * proportional to the nodes whose distance changes and their edges, not to
+ * the graph.
+ */
+public class DynamicDAGPaths {
+    private Graph graph;
+    private Metrics metrics;
+    private MultiSourcePaths.PathType type;
+    private int source;
+    private int unreachable;
+
+    private int[] order;
+    private int[] position;
+    private int[] dist;
+    private int[] parent;
+
+    // In-edges as indices of the forward edges, so weights are always read
+    // from the graph itself
+    private int[] inStart;
+    private int[] inEdge;
+    private int[] edgeSource;
+
+    // Min-heap of queued nodes by topological position
+    private int[] heap;
+    private int heapSize;
+    private boolean[] queued;
+    private boolean changed;
+    private int lastAffected;
+
+    public DynamicDAGPaths(Graph graph, Metrics metrics, MultiSourcePaths.PathType type, int source) {
+        this.graph = graph;
+        this.metrics = metrics;
+        this.type = type;
+        this.source = source;
+        this.unreachable = type == MultiSourcePaths.PathType.SHORTEST ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+
+        int n = graph.getN();
+        order = new TopologicalSort(graph, new MetricsImpl()).sortOrder();
+        if (order == null) {
+            throw new IllegalArgumentException("Graph contains a cycle");
+        }
+        position = new int[n];
+        for (int i = 0; i < n; i++) {
+            position[order[i]] = i;
+        }
+
+        int m = graph.getEdgeCount();
+        inStart = new int[n + 1];
+        edgeSource = new int[m];
+        for (int u = 0; u < n; u++) {
+            for (int i = graph.edgeStart(u), end = graph.edgeEnd(u); i < end; i++) {
+                inStart[graph.target(i) + 1]++;
+                edgeSource[i] = u;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            inStart[v + 1] += inStart[v];
+        }
+        inEdge = new int[m];
+        int[] cursor = Arrays.copyOf(inStart, n);
+        for (int i = 0; i < m; i++) {
+            inEdge[cursor[graph.target(i)]++] = i;
+        }
+
+        dist = new int[n];
+        parent = new int[n];
+        heap = new int[16];
+        queued = new boolean[n];
+        recompute();
+    }
+
+    /** Full pass over the topological order. */
+    public void recompute() {
+        metrics.startTimer();
+        long edgeTraversals = 0;
+        for (int v : order) {
+            edgeTraversals += relax(v);
+        }
+        metrics.addVisits(order.length);
+        metrics.addEdgeTraversals(edgeTraversals);
+        lastAffected = order.length;
+        metrics.stopTimer();
+    }
+
+    /** Set the weight of edge i and repair the distances. */
+    public void updateWeight(int edge, int weight) {
+        updateWeights(new int[]{edge}, new int[]{weight});
+    }
+
+    /** Set several edge weights at once, then repair the distances in one pass. */
+    public void updateWeights(int[] edges, int[] weights) {
+        metrics.startTimer();
+        for (int j = 0; j < edges.length; j++) {
+            graph.setWeight(edges[j], weights[j]);
+            enqueue(graph.target(edges[j]));
+        }
+
+        long visits = 0;
+        long edgeTraversals = 0;
+        long relaxations = 0;
+        while (heapSize > 0) {
+            int v = poll();
+            visits++;
+            edgeTraversals += repair(v);
+            if (changed) {
+                relaxations++;
+            }
+        }
+
+        metrics.addVisits(visits);
+        metrics.addEdgeTraversals(edgeTraversals);
+        metrics.addRelaxations(relaxations);
+        lastAffected = (int) visits;
+        metrics.stopTimer();
+    }
+
+    /** Nodes re-relaxed by the last update (all of them after recompute). */
+    public int getLastAffected() { return lastAffected; }
+
+    public int[] getDistances() { return dist; }
+    public int[] getParents() { return parent; }
+    public int[] getOrder() { return order; }
+
+    public List<Integer> reconstructPath(int target) {
+        if (dist[target] == unreachable) {
+            return null;
+        }
+
+        List<Integer> path = new ArrayList<>();
+        for (int v = target; v != -1; v = parent[v]) {
+            path.add(v);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    // Re-relax v and queue its successors if its distance changed
+    private int repair(int v) {
+        int before = dist[v];
+        int scanned = relax(v);
+        changed = dist[v] != before;
+        if (changed) {
+            for (int i = graph.edgeStart(v), end = graph.edgeEnd(v); i < end; i++) {
+                enqueue(graph.target(i));
+            }
+            scanned += graph.degree(v);
+        }
+        return scanned;
+    }
+
+    // Distance of v from its in-edges, whose tails are all final; returns
+    // the number of in-edges scanned
+    private int relax(int v) {
+        if (v == source) {
+            dist[v] = 0;
+            parent[v] = -1;
+            return 0;
+        }
+        int best = unreachable;
+        int bestParent = -1;
+        boolean shortest = type == MultiSourcePaths.PathType.SHORTEST;
+        for (int j = inStart[v], end = inStart[v + 1]; j < end; j++) {
+            int u = edgeSource[inEdge[j]];
+            if (dist[u] == unreachable) {
+                continue;
+            }
+            int candidate = dist[u] + graph.weight(inEdge[j]);
+            if (shortest ? candidate < best : candidate > best) {
+                best = candidate;
+                bestParent = u;
+            }
+        }
+        dist[v] = best;
+        parent[v] = bestParent;
+        return inStart[v + 1] - inStart[v];
+    }
+
+    private void enqueue(int v) {
+        if (queued[v]) {
+            return;
+        }
+        queued[v] = true;
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, 2 * heapSize);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int up = (i - 1) >>> 1;
+            if (position[heap[up]] <= position[v]) {
+                break;
+            }
+            heap[i] = heap[up];
+            i = up;
+        }
+        heap[i] = v;
+    }
+
+    private int poll() {
+        int top = heap[0];
+        queued[top] = false;
+        int v = heap[--heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && position[heap[child + 1]] < position[heap[child]]) {
+                child++;
+            }
+            if (position[heap[child]] >= position[v]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = v;
+        return top;
+    }
+}
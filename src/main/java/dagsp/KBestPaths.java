@@ -0,0 +1,345 @@
+package dagsp;
+
+import graph.*;
+import topo.TopologicalSort;
+import java.util.*;
+
+/**
+ * K shortest or K longest paths from one source in a DAG, enumerated lazily
+ * with the recursive enumeration algorithm (Jimenez and Marzal). One pass
+ * over the topological order finds the best path to every node, as
+ * DAGShortestPath / DAGLongestPath do. The i-th best path to v is then
+ * either the best path via another in-edge, or the next-best path of the
+ * predecessor of v's (i-1)-th path plus that same edge. Every node keeps
+ * the paths found so far and a heap of candidates. Nodes are only touched
+ * when a query needs them, so asking for K paths costs the single-path pass
+ * plus work proportional to K times the path lengths.
+ *
+ * Paths are stored as (in-edge, rank of the predecessor's path), so a path
+ * is rebuilt by walking back to the source only when it is requested.
+ */
+public class KBestPaths {
+    private Graph graph;
+    private Graph reverse;
+    private Metrics metrics;
+    private MultiSourcePaths.PathType type;
+    private int source = -1;
+
+    // Best path to every node from the topological pass; costs are negated
+    // for LONGEST so that smaller is always better
+    private long[] best;
+    private int[] bestEdge;
+    private NodePaths[] paths;
+
+    /** One ranked path: its end node, total weight and nodes from the source. */
+    public static final class RankedPath {
+        private int target;
+        private long distance;
+        private List<Integer> nodes;
+
+        RankedPath(int target, long distance, List<Integer> nodes) {
+            this.target = target;
+            this.distance = distance;
+            this.nodes = nodes;
+        }
+
+        public int getTarget() { return target; }
+        public long getDistance() { return distance; }
+        public List<Integer> getNodes() { return nodes; }
+
+        @Override
+        public String toString() {
+            return "distance = " + distance + ", path = " + nodes;
+        }
+    }
+
+    public KBestPaths(Graph graph, Metrics metrics, MultiSourcePaths.PathType type) {
+        this.graph = graph;
+        this.metrics = metrics;
+        this.type = type;
+    }
+
+    public void compute(int source) {
+        int[] order = new TopologicalSort(graph, new MetricsImpl()).sortOrder();
+        if (order == null) {
+            throw new IllegalArgumentException("Graph contains a cycle");
+        }
+        compute(source, order);
+    }
+
+    /** Best path to every node, reusing a topological order computed earlier. */
+    public void compute(int source, int[] order) {
+        metrics.startTimer();
+        int n = graph.getN();
+        this.source = source;
+        this.reverse = graph.getReverse();
+        this.best = new long[n];
+        this.bestEdge = new int[n];
+        this.paths = new NodePaths[n];
+        Arrays.fill(best, Long.MAX_VALUE);
+        Arrays.fill(bestEdge, -1);
+        best[source] = 0;
+
+        long visits = 0;
+        long edgeTraversals = 0;
+        long relaxations = 0;
+        int sign = type == MultiSourcePaths.PathType.SHORTEST ? 1 : -1;
+
+        // Pull over in-edges so the winning edge of every node is known
+        for (int v : order) {
+            for (int i = reverse.edgeStart(v), end = reverse.edgeEnd(v); i < end; i++) {
+                int u = reverse.target(i);
+                edgeTraversals++;
+                if (best[u] != Long.MAX_VALUE && best[u] + sign * reverse.weight(i) < best[v]) {
+                    best[v] = best[u] + sign * reverse.weight(i);
+                    bestEdge[v] = i;
+                    relaxations++;
+                }
+            }
+            if (best[v] != Long.MAX_VALUE) {
+                visits++;
+            }
+        }
+
+        metrics.addVisits(visits);
+        metrics.addEdgeTraversals(edgeTraversals);
+        metrics.addRelaxations(relaxations);
+        metrics.stopTimer();
+    }
+
+    /** Up to k best paths from the source to target, best first. */
+    public List<RankedPath> paths(int target, int k) {
+        List<RankedPath> result = new ArrayList<>();
+        for (int rank = 0; rank < k && ensure(target, rank); rank++) {
+            result.add(path(target, rank));
+        }
+        return result;
+    }
+
+    /**
+     * Up to k best complete chains: paths from the source to a node without
+     * out-edges. With LONGEST these are the critical path and the chains
+     * closest to it.
+     */
+    public List<RankedPath> topPaths(int k) {
+        // Merge the per-sink lists: one entry per sink, advanced when taken
+        PriorityQueue<long[]> heads = new PriorityQueue<>(
+                Comparator.<long[]>comparingLong(h -> h[0]).thenComparingLong(h -> h[1]));
+        for (int v = 0; v < graph.getN(); v++) {
+            if (graph.degree(v) == 0 && best[v] != Long.MAX_VALUE) {
+                heads.add(new long[]{best[v], v, 0});
+            }
+        }
+        List<RankedPath> result = new ArrayList<>();
+        while (result.size() < k && !heads.isEmpty()) {
+            long[] head = heads.poll();
+            int v = (int) head[1];
+            int rank = (int) head[2];
+            result.add(path(v, rank));
+            if (ensure(v, rank + 1)) {
+                heads.add(new long[]{paths[v].cost[rank + 1], v, rank + 1});
+            }
+        }
+        return result;
+    }
+
+    /** Nodes of the rank-th best path (0 = best) to target, or null if there is none. */
+    public List<Integer> reconstructPath(int target, int rank) {
+        if (!ensure(target, rank)) {
+            return null;
+        }
+        List<Integer> nodes = new ArrayList<>();
+        int v = target;
+        int r = rank;
+        while (true) {
+            nodes.add(v);
+            int edge = edgeOf(v, r);
+            if (edge < 0) {
+                break;
+            }
+            r = r == 0 ? 0 : paths[v].rank[r];
+            v = reverse.target(edge);
+        }
+        Collections.reverse(nodes);
+        return nodes;
+    }
+
+    private RankedPath path(int target, int rank) {
+        long cost = rank == 0 ? best[target] : paths[target].cost[rank];
+        long distance = type == MultiSourcePaths.PathType.SHORTEST ? cost : -cost;
+        return new RankedPath(target, distance, reconstructPath(target, rank));
+    }
+
+    private int edgeOf(int v, int rank) {
+        return rank == 0 ? bestEdge[v] : paths[v].edge[rank];
+    }
+
+    /**
+     * Make sure the rank-th best path to v is known; false if v has fewer
+     * paths. Iterative, since a request can recurse down a whole path.
+     */
+    private boolean ensure(int v, int rank) {
+        if (source < 0) {
+            throw new IllegalStateException("compute(source) has not been called");
+        }
+        if (best[v] == Long.MAX_VALUE) {
+            return false;
+        }
+        if (rank == 0) {
+            return true;
+        }
+
+        // Requests as (node, rank) pairs
+        int[] pending = new int[16];
+        int top = 0;
+        pending[top++] = v;
+        pending[top++] = rank;
+        while (top > 0) {
+            int x = pending[top - 2];
+            int r = pending[top - 1];
+            NodePaths p = node(x);
+            if (p.count > r || p.exhausted) {
+                top -= 2;
+                continue;
+            }
+
+            // The newest path's successor via the same edge needs the
+            // predecessor's next path first
+            if (!p.successorQueued) {
+                int last = p.count - 1;
+                int edge = edgeOf(x, last);
+                if (edge >= 0) {
+                    int u = reverse.target(edge);
+                    int next = p.rank[last] + 1;
+                    NodePaths q = node(u);
+                    if (q.count <= next && !q.exhausted) {
+                        if (top == pending.length) {
+                            pending = Arrays.copyOf(pending, 2 * top);
+                        }
+                        pending[top++] = u;
+                        pending[top++] = next;
+                        continue;
+                    }
+                    if (q.count > next) {
+                        p.offer(q.cost[next] + signed(edge), edge, next);
+                    }
+                }
+                p.successorQueued = true;
+            }
+
+            if (p.candidates == 0) {
+                p.exhausted = true;
+            } else {
+                p.take();
+                p.successorQueued = false;
+            }
+        }
+        NodePaths p = paths[v];
+        return p.count > rank;
+    }
+
+    private long signed(int edge) {
+        return type == MultiSourcePaths.PathType.SHORTEST ? reverse.weight(edge) : -reverse.weight(edge);
+    }
+
+    // Paths of x beyond the best one start from every other in-edge with the
+    // predecessor's best path
+    private NodePaths node(int x) {
+        NodePaths p = paths[x];
+        if (p == null) {
+            p = new NodePaths();
+            p.add(best[x], bestEdge[x], 0);
+            if (best[x] == Long.MAX_VALUE) {
+                p.exhausted = true;
+            }
+            for (int i = reverse.edgeStart(x), end = reverse.edgeEnd(x); i < end; i++) {
+                int u = reverse.target(i);
+                if (i != bestEdge[x] && best[u] != Long.MAX_VALUE) {
+                    p.offer(best[u] + signed(i), i, 0);
+                }
+            }
+            paths[x] = p;
+        }
+        return p;
+    }
+
+    /** Paths found so far for one node, and a binary heap of candidates. */
+    private static final class NodePaths {
+        private long[] cost = new long[2];
+        private int[] edge = new int[2];
+        private int[] rank = new int[2];
+        private int count;
+        private boolean exhausted;
+        private boolean successorQueued;
+
+        private long[] candidateCost = new long[4];
+        private int[] candidateEdge = new int[4];
+        private int[] candidateRank = new int[4];
+        private int candidates;
+
+        void add(long c, int e, int r) {
+            if (count == cost.length) {
+                cost = Arrays.copyOf(cost, 2 * count);
+                edge = Arrays.copyOf(edge, 2 * count);
+                rank = Arrays.copyOf(rank, 2 * count);
+            }
+            cost[count] = c;
+            edge[count] = e;
+            rank[count] = r;
+            count++;
+        }
+
+        void offer(long c, int e, int r) {
+            if (candidates == candidateCost.length) {
+                candidateCost = Arrays.copyOf(candidateCost, 2 * candidates);
+                candidateEdge = Arrays.copyOf(candidateEdge, 2 * candidates);
+                candidateRank = Arrays.copyOf(candidateRank, 2 * candidates);
+            }
+            int i = candidates++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (candidateCost[parent] <= c) {
+                    break;
+                }
+                move(parent, i);
+                i = parent;
+            }
+            candidateCost[i] = c;
+            candidateEdge[i] = e;
+            candidateRank[i] = r;
+        }
+
+        /** Move the cheapest candidate to the path list. */
+        void take() {
+            add(candidateCost[0], candidateEdge[0], candidateRank[0]);
+            candidates--;
+            long c = candidateCost[candidates];
+            int e = candidateEdge[candidates];
+            int r = candidateRank[candidates];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= candidates) {
+                    break;
+                }
+                if (child + 1 < candidates && candidateCost[child + 1] < candidateCost[child]) {
+                    child++;
+                }
+                if (candidateCost[child] >= c) {
+                    break;
+                }
+                move(child, i);
+                i = child;
+            }
+            candidateCost[i] = c;
+            candidateEdge[i] = e;
+            candidateRank[i] = r;
+        }
+
+        private void move(int from, int to) {
+            candidateCost[to] = candidateCost[from];
+            candidateEdge[to] = candidateEdge[from];
+            candidateRank[to] = candidateRank[from];
+        }
+    }
+}
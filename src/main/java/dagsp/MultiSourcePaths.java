@@ -0,0 +1,199 @@
+package dagsp;
+
+import graph.*;
+import topo.TopologicalSort;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shortest or longest paths from many sources sharing one topological
+ * order. Sources are processed in blocks of BLOCK: distances of a block are
+ * interleaved per node (dist[v * BLOCK + lane]), so one pass over the edges
+ * relaxes every source of the block with a short, contiguous inner loop.
+ * Blocks run in parallel on a ForkJoinPool.
+ */
+public class MultiSourcePaths {
+    public enum PathType { SHORTEST, LONGEST }
+
+    public static final int BLOCK = 8;
+
+    private Graph graph;
+    private Metrics metrics;
+    private ForkJoinPool pool;
+
+    public MultiSourcePaths(Graph graph, Metrics metrics) {
+        this(graph, metrics, ForkJoinPool.commonPool());
+    }
+
+    public MultiSourcePaths(Graph graph, Metrics metrics, ForkJoinPool pool) {
+        this.graph = graph;
+        this.metrics = metrics;
+        this.pool = pool;
+    }
+
+    public DistanceMatrix compute(int[] sources, PathType type) {
+        int[] order = new TopologicalSort(graph, new MetricsImpl()).sortOrder();
+        if (order == null) {
+            throw new IllegalArgumentException("Graph contains a cycle");
+        }
+        return compute(sources, type, order);
+    }
+
+    /**
+     * Same as compute(sources, type) with a topological order computed
+     * earlier, e.g. by GraphAnalysisSession.
+     */
+    public DistanceMatrix compute(int[] sources, PathType type, int[] order) {
+        if (graph.isDiskBacked()) {
+            throw new IllegalArgumentException(
+                    "MultiSourcePaths cannot read a disk-backed graph from several threads");
+        }
+        metrics.startTimer();
+
+        int n = graph.getN();
+        if ((long) n * BLOCK > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(n + " nodes do not fit in one block of " + BLOCK
+                    + " interleaved distance arrays");
+        }
+        int unreachable = type == PathType.SHORTEST ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+        DistanceMatrix matrix = new DistanceMatrix(sources.clone(), n, unreachable);
+        int[] position = new int[n];
+        for (int i = 0; i < order.length; i++) {
+            position[order[i]] = i;
+        }
+
+        // Per call, so concurrent calls on one instance keep separate counts
+        Counters counters = new Counters();
+        int blocks = (sources.length + BLOCK - 1) / BLOCK;
+        pool.invoke(new BlockTask(matrix, type, order, position, counters, 0, blocks));
+
+        metrics.addVisits(counters.visits.sum());
+        metrics.addEdgeTraversals(counters.edgeTraversals.sum());
+        metrics.addRelaxations(counters.relaxations.sum());
+        metrics.stopTimer();
+        return matrix;
+    }
+
+    /**
+     * Distances between every pair of components of a condensation DAG.
+     */
+    public static DistanceMatrix allPairs(Graph dag, PathType type, Metrics metrics) {
+        int[] sources = new int[dag.getN()];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = i;
+        }
+        return new MultiSourcePaths(dag, metrics).compute(sources, type);
+    }
+
+    private static final class Counters {
+        private final LongAdder visits = new LongAdder();
+        private final LongAdder edgeTraversals = new LongAdder();
+        private final LongAdder relaxations = new LongAdder();
+    }
+
+    @SuppressWarnings("serial")
+    private class BlockTask extends RecursiveAction {
+        private final DistanceMatrix matrix;
+        private final PathType type;
+        private final int[] order;
+        private final int[] position;
+        private final Counters counters;
+        private final int fromBlock;
+        private final int toBlock;
+
+        BlockTask(DistanceMatrix matrix, PathType type, int[] order, int[] position,
+                  Counters counters, int fromBlock, int toBlock) {
+            this.matrix = matrix;
+            this.type = type;
+            this.order = order;
+            this.position = position;
+            this.counters = counters;
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+        }
+
+        @Override
+        protected void compute() {
+            if (toBlock - fromBlock > 1) {
+                int mid = (fromBlock + toBlock) >>> 1;
+                invokeAll(new BlockTask(matrix, type, order, position, counters, fromBlock, mid),
+                        new BlockTask(matrix, type, order, position, counters, mid, toBlock));
+                return;
+            }
+            int first = fromBlock * BLOCK;
+            int lanes = Math.min(BLOCK, matrix.getSourceCount() - first);
+            relax(matrix, type == PathType.SHORTEST, order, position, first, lanes, counters);
+        }
+    }
+
+    /**
+     * One pass over the order for a block of lanes. shortest keeps the
+     * smaller candidate, otherwise the larger one; the flag is loop
+     * invariant, so the JIT unswitches the inner loop on it.
+     */
+    private void relax(DistanceMatrix matrix, boolean shortest, int[] order, int[] position,
+                       int first, int lanes, Counters counters) {
+        int n = graph.getN();
+        int unreachable = matrix.getUnreachable();
+        int[] dist = new int[n * BLOCK];
+        Arrays.fill(dist, unreachable);
+        int start = n;
+        for (int j = 0; j < lanes; j++) {
+            int s = matrix.source(first + j);
+            dist[s * BLOCK + j] = 0;
+            start = Math.min(start, position[s]);
+        }
+
+        long visited = 0, scanned = 0, relaxed = 0;
+        for (int k = start; k < order.length; k++) {
+            int u = order[k];
+            int base = u * BLOCK;
+            boolean reached = false;
+            for (int j = 0; j < BLOCK; j++) {
+                if (dist[base + j] != unreachable) {
+                    reached = true;
+                    break;
+                }
+            }
+            if (!reached) {
+                continue;
+            }
+            visited++;
+
+            for (int i = graph.edgeStart(u), end = graph.edgeEnd(u); i < end; i++) {
+                int vBase = graph.target(i) * BLOCK;
+                int w = graph.weight(i);
+                scanned++;
+                for (int j = 0; j < BLOCK; j++) {
+                    int d = dist[base + j];
+                    if (d == unreachable) {
+                        continue;
+                    }
+                    int current = dist[vBase + j];
+                    if (shortest ? d + w < current : d + w > current) {
+                        dist[vBase + j] = d + w;
+                        relaxed++;
+                    }
+                }
+            }
+        }
+
+        scatter(matrix, dist, first, lanes);
+        counters.visits.add(visited);
+        counters.edgeTraversals.add(scanned);
+        counters.relaxations.add(relaxed);
+    }
+
+    // Copy the interleaved lanes of a block into the matrix rows
+    private static void scatter(DistanceMatrix matrix, int[] dist, int first, int lanes) {
+        int n = matrix.getN();
+        int[] data = matrix.data();
+        for (int j = 0; j < lanes; j++) {
+            int row = (first + j) * n;
+            for (int v = 0; v < n; v++) {
+                data[row + v] = dist[v * BLOCK + j];
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package graph;
+
+/**
+ * Metrics that count into plain fields and hand the totals to a delegate
+ * in one bulk add per counter: on stopTimer(), on flush() and before any
+ * read. This is the local batching the core algorithms do by hand, made
+ * available to any algorithm that still counts per event. Give each worker
+ * thread its own instance over one shared ConcurrentMetrics, so the
+ * per-edge cost is a field increment instead of a LongAdder update. An
+ * instance itself is not thread safe; timer calls go straight to the
+ * delegate.
+ */
+public class BatchingMetrics implements Metrics {
+    private final Metrics delegate;
+    private long visits;
+    private long edgeTraversals;
+    private long relaxations;
+
+    public BatchingMetrics(Metrics delegate) {
+        this.delegate = delegate;
+    }
+
+    public Metrics getDelegate() { return delegate; }
+
+    /** Hand the counts gathered so far to the delegate. */
+    public void flush() {
+        if (visits != 0) {
+            delegate.addVisits(visits);
+            visits = 0;
+        }
+        if (edgeTraversals != 0) {
+            delegate.addEdgeTraversals(edgeTraversals);
+            edgeTraversals = 0;
+        }
+        if (relaxations != 0) {
+            delegate.addRelaxations(relaxations);
+            relaxations = 0;
+        }
+    }
+
+    @Override
+    public void incrementVisits() { visits++; }
+
+    @Override
+    public void incrementEdgeTraversals() { edgeTraversals++; }
+
+    @Override
+    public void incrementRelaxations() { relaxations++; }
+
+    @Override
+    public void addVisits(long count) { visits += count; }
+
+    @Override
+    public void addEdgeTraversals(long count) { edgeTraversals += count; }
+
+    @Override
+    public void addRelaxations(long count) { relaxations += count; }
+
+    @Override
+    public long getVisits() {
+        flush();
+        return delegate.getVisits();
+    }
+
+    @Override
+    public long getEdgeTraversals() {
+        flush();
+        return delegate.getEdgeTraversals();
+    }
+
+    @Override
+    public long getRelaxations() {
+        flush();
+        return delegate.getRelaxations();
+    }
+
+    @Override
+    public long getExecutionTimeNanos() { return delegate.getExecutionTimeNanos(); }
+
+    @Override
+    public void startTimer() { delegate.startTimer(); }
+
+    @Override
+    public void stopTimer() {
+        flush();
+        delegate.stopTimer();
+    }
+
+    @Override
+    public void reset() {
+        visits = 0;
+        edgeTraversals = 0;
+        relaxations = 0;
+        delegate.reset();
+    }
+
+    @Override
+    public String toString() {
+        flush();
+        return delegate.toString();
+    }
+}
@@ -0,0 +1,276 @@
+package graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact binary graph file. All values are little-endian ints:
+ *
+ *   header   64 bytes: magic, version, flags (bit 0 = directed), n, m,
+ *            source, weight model length, weight model UTF-8 bytes
+ *   offsets  n + 1 ints
+ *   targets  m ints
+ *   weights  m ints
+ *
+ * Loading maps the file and reads adjacency straight from the mapped pages.
+ */
+public class BinaryGraphFormat {
+    public static final String EXTENSION = ".bin";
+
+    /** Bytes of targets or weights fetched per block read by open() graphs. */
+    public static final int BLOCK_BYTES = 4 << BlockCache.BLOCK_SHIFT;
+
+    private static final int MAGIC = 0x42474144; // "DAGB"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int MAX_WEIGHT_MODEL_BYTES = HEADER_BYTES - 28;
+    private static final int FLAG_DIRECTED = 1;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    private BinaryGraphFormat() {
+    }
+
+    /**
+     * Convert a graph in the JSON dataset schema to the binary format.
+     */
+    public static void convert(String jsonFile, String binaryFile) throws IOException {
+        write(Graph.fromJson(jsonFile), binaryFile);
+    }
+
+    /**
+     * Adjacency handed out one node at a time, so a file can be written
+     * without the whole graph in memory. Every call for the same node must
+     * produce the same edges, since the writer makes one pass per section.
+     */
+    public interface EdgeSource {
+        /** Append the targets and weights of the out-edges of u. */
+        void edgesOf(int u, IntBag targets, IntBag weights);
+    }
+
+    public static void write(Graph graph, String filename) throws IOException {
+        write(filename, graph.getN(), graph.isDirected(), graph.getSource(), graph.getWeightModel(),
+                (u, targets, weights) -> {
+                    for (int i = graph.edgeStart(u), end = graph.edgeEnd(u); i < end; i++) {
+                        targets.add(graph.target(i));
+                        weights.add(graph.weight(i));
+                    }
+                });
+    }
+
+    /**
+     * Write a graph from an edge source in three passes (offsets, targets,
+     * weights). The edge count goes into the header once the first pass
+     * has counted it.
+     */
+    public static void write(String filename, int n, boolean directed, int source,
+                             String weightModel, EdgeSource edges) throws IOException {
+        byte[] model = weightModel == null
+                ? new byte[0]
+                : weightModel.getBytes(StandardCharsets.UTF_8);
+        if (model.length > MAX_WEIGHT_MODEL_BYTES) {
+            throw new IOException("Weight model name longer than " + MAX_WEIGHT_MODEL_BYTES + " bytes");
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            IntBag targets = new IntBag(64);
+            IntBag weights = new IntBag(64);
+
+            buffer.position(HEADER_BYTES);
+            long m = 0;
+            for (int u = 0; u < n; u++) {
+                putInt(channel, buffer, (int) m);
+                targets.clear();
+                weights.clear();
+                edges.edgesOf(u, targets, weights);
+                m += targets.size();
+                if (m > Integer.MAX_VALUE) {
+                    throw new IOException("More than " + Integer.MAX_VALUE + " edges");
+                }
+            }
+            putInt(channel, buffer, (int) m);
+
+            for (int pass = 0; pass < 2; pass++) {
+                for (int u = 0; u < n; u++) {
+                    targets.clear();
+                    weights.clear();
+                    edges.edgesOf(u, targets, weights);
+                    IntBag section = pass == 0 ? targets : weights;
+                    for (int i = 0; i < section.size(); i++) {
+                        putInt(channel, buffer, section.get(i));
+                    }
+                }
+            }
+            drain(channel, buffer);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(directed ? FLAG_DIRECTED : 0);
+            header.putInt(n);
+            header.putInt((int) m);
+            header.putInt(source);
+            header.putInt(model.length);
+            header.put(model);
+            header.clear();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+    }
+
+    private static void putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+        if (buffer.remaining() < Integer.BYTES) {
+            drain(channel, buffer);
+        }
+        buffer.putInt(value);
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Header fields and section positions of an opened file
+    private static final class Header {
+        boolean directed;
+        int n;
+        int m;
+        int source;
+        String weightModel;
+        long offsetsAt;
+        long targetsAt;
+        long weightsAt;
+    }
+
+    private static Header readHeader(FileChannel channel, String filename) throws IOException {
+        if (channel.size() < HEADER_BYTES) {
+            throw new IOException(filename + ": too short for a graph header");
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            channel.read(header, header.position());
+        }
+        header.flip();
+
+        if (header.getInt() != MAGIC) {
+            throw new IOException(filename + ": not a binary graph file");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException(filename + ": unsupported format version " + version);
+        }
+        Header h = new Header();
+        h.directed = (header.getInt() & FLAG_DIRECTED) != 0;
+        h.n = header.getInt();
+        h.m = header.getInt();
+        h.source = header.getInt();
+        if (h.n < 0 || h.n == Integer.MAX_VALUE || h.m < 0) {
+            throw new IOException(filename + ": invalid node or edge count " + h.n + ", " + h.m);
+        }
+        int modelLength = header.getInt();
+        if (modelLength < 0 || modelLength > MAX_WEIGHT_MODEL_BYTES) {
+            throw new IOException(filename + ": invalid weight model length " + modelLength);
+        }
+        byte[] model = new byte[modelLength];
+        header.get(model);
+        h.weightModel = model.length == 0 ? null : new String(model, StandardCharsets.UTF_8);
+
+        h.offsetsAt = HEADER_BYTES;
+        h.targetsAt = h.offsetsAt + 4L * (h.n + 1);
+        h.weightsAt = h.targetsAt + 4L * h.m;
+        long expectedSize = h.weightsAt + 4L * h.m;
+        if (channel.size() != expectedSize) {
+            throw new IOException(filename + ": expected " + expectedSize
+                    + " bytes but found " + channel.size());
+        }
+        return h;
+    }
+
+    /**
+     * Memory-map a binary graph file. Nothing is copied onto the heap; the
+     * mapping stays valid after this method closes the channel.
+     */
+    public static Graph map(String filename) throws IOException {
+        Path path = Paths.get(filename);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Header h = readHeader(channel, filename);
+            Graph g = Graph.fromBuffers(h.n, h.directed,
+                    mapInts(channel, h.offsetsAt, h.n + 1),
+                    mapInts(channel, h.targetsAt, h.m),
+                    mapInts(channel, h.weightsAt, h.m));
+            g.setSource(h.source);
+            g.setWeightModel(h.weightModel);
+            return g;
+        }
+    }
+
+    /**
+     * Open a binary graph file for out-of-core use. Only the offsets (n + 1
+     * ints) are loaded; targets and weights are read from disk on demand
+     * through an LRU block cache of about cacheBytes. Unlike map(), the
+     * memory used does not depend on the operating system's page cache. The
+     * file stays open until the graph is closed with close(Graph). The graph
+     * is read-only and must not be read from several threads at once.
+     */
+    public static Graph open(String filename, long cacheBytes) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        try {
+            Header h = readHeader(channel, filename);
+            int[] offsets = new int[h.n + 1];
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            long position = h.offsetsAt;
+            int filled = 0;
+            while (filled < offsets.length) {
+                buffer.clear().limit(Math.min(buffer.capacity(), 4 * (offsets.length - filled)));
+                while (buffer.hasRemaining()) {
+                    int read = channel.read(buffer, position);
+                    if (read < 0) {
+                        throw new IOException(filename + ": unexpected end of file");
+                    }
+                    position += read;
+                }
+                buffer.flip();
+                int count = buffer.remaining() / 4;
+                buffer.asIntBuffer().get(offsets, filled, count);
+                filled += count;
+            }
+
+            BlockCache cache = new BlockCache(channel, h.targetsAt, h.weightsAt, h.m, cacheBytes);
+            Graph g = Graph.fromBlockCache(h.n, h.directed, offsets, cache);
+            g.setSource(h.source);
+            g.setWeightModel(h.weightModel);
+            return g;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Close the file behind a graph returned by open(); other graphs are left alone. */
+    public static void close(Graph graph) throws IOException {
+        graph.closeBlockCache();
+    }
+
+    /** Blocks read from disk so far by a graph returned by open(); 0 for other graphs. */
+    public static long getBlockReads(Graph graph) {
+        return graph.getBlockReads();
+    }
+
+    private static IntBuffer mapInts(FileChannel channel, long position, int count) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asIntBuffer();
+    }
+}
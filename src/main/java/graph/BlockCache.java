@@ -0,0 +1,110 @@
+package graph;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+/**
+ * Targets and weights of a binary graph file read from disk in fixed-size
+ * blocks, with the most recently used blocks kept in a bounded LRU cache.
+ * Heap use is the cache budget, independent of the edge count. Not thread
+ * safe.
+ */
+final class BlockCache {
+    static final int BLOCK_SHIFT = 15;
+
+    private static final int TARGETS = 0;
+    private static final int WEIGHTS = 1;
+
+    private FileChannel channel;
+    private long[] regionStart;
+    private int edgeCount;
+    private int blockInts;
+    private int blockShift;
+    private int maxBlocks;
+    private ByteBuffer readBuffer;
+    private LinkedHashMap<Long, int[]> blocks;
+    private int[] spare;
+    private long reads;
+
+    // Last block touched in each region, checked before the map
+    private long[] lastKey = {-1, -1};
+    private int[][] lastBlock = new int[2][];
+
+    BlockCache(FileChannel channel, long targetsAt, long weightsAt, int edgeCount, long cacheBytes) {
+        this.channel = channel;
+        this.regionStart = new long[]{targetsAt, weightsAt};
+        this.edgeCount = edgeCount;
+        this.blockShift = BLOCK_SHIFT;
+        this.blockInts = 1 << blockShift;
+        this.maxBlocks = (int) Math.max(2, cacheBytes / (4L * blockInts));
+        this.readBuffer = ByteBuffer.allocateDirect(4 * blockInts).order(ByteOrder.LITTLE_ENDIAN);
+        this.blocks = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    int getEdgeCount() { return edgeCount; }
+
+    /** Number of blocks read from disk so far. */
+    long getReads() { return reads; }
+
+    int target(int i) { return get(TARGETS, i); }
+    int weight(int i) { return get(WEIGHTS, i); }
+
+    private int get(int region, int i) {
+        long key = ((long) region << 32) | (i >>> blockShift);
+        if (lastKey[region] != key) {
+            lastBlock[region] = block(key, region, i >>> blockShift);
+            lastKey[region] = key;
+        }
+        return lastBlock[region][i & (blockInts - 1)];
+    }
+
+    private int[] block(long key, int region, int index) {
+        int[] data = blocks.get(key);
+        if (data != null) {
+            return data;
+        }
+        if (blocks.size() >= maxBlocks) {
+            Iterator<Map.Entry<Long, int[]>> it = blocks.entrySet().iterator();
+            Map.Entry<Long, int[]> eldest = it.next();
+            for (int r = 0; r < lastKey.length; r++) {
+                if (lastKey[r] == eldest.getKey()) {
+                    lastKey[r] = -1;
+                }
+            }
+            spare = eldest.getValue();
+            it.remove();
+        }
+        data = spare != null ? spare : new int[blockInts];
+        spare = null;
+        load(region, index, data);
+        blocks.put(key, data);
+        return data;
+    }
+
+    private void load(int region, int index, int[] data) {
+        long first = (long) index << blockShift;
+        int count = (int) Math.min(blockInts, edgeCount - first);
+        readBuffer.clear().limit(4 * count);
+        long position = regionStart[region] + 4 * first;
+        try {
+            while (readBuffer.hasRemaining()) {
+                if (channel.read(readBuffer, position + readBuffer.position()) < 0) {
+                    throw new IOException("Unexpected end of graph file");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        readBuffer.flip();
+        readBuffer.asIntBuffer().get(data, 0, count);
+        reads++;
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,70 @@
+package graph;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics that can be shared by worker threads. Counters are striped
+ * LongAdders, so concurrent increments do not contend on one cache line.
+ * The timer is meant to be started and stopped by the coordinating thread.
+ */
+public class ConcurrentMetrics implements Metrics {
+    private final LongAdder visits = new LongAdder();
+    private final LongAdder edgeTraversals = new LongAdder();
+    private final LongAdder relaxations = new LongAdder();
+    private volatile long startTime = 0;
+    private volatile long executionTime = 0;
+
+    @Override
+    public void incrementVisits() { visits.increment(); }
+
+    @Override
+    public void incrementEdgeTraversals() { edgeTraversals.increment(); }
+
+    @Override
+    public void incrementRelaxations() { relaxations.increment(); }
+
+    @Override
+    public void addVisits(long count) { visits.add(count); }
+
+    @Override
+    public void addEdgeTraversals(long count) { edgeTraversals.add(count); }
+
+    @Override
+    public void addRelaxations(long count) { relaxations.add(count); }
+
+    @Override
+    public long getVisits() { return visits.sum(); }
+
+    @Override
+    public long getEdgeTraversals() { return edgeTraversals.sum(); }
+
+    @Override
+    public long getRelaxations() { return relaxations.sum(); }
+
+    @Override
+    public long getExecutionTimeNanos() { return executionTime; }
+
+    @Override
+    public void startTimer() { startTime = System.nanoTime(); }
+
+    @Override
+    public void stopTimer() {
+        executionTime = System.nanoTime() - startTime;
+    }
+
+    @Override
+    public void reset() {
+        visits.reset();
+        edgeTraversals.reset();
+        relaxations.reset();
+        executionTime = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "Visits: %d, Edges: %d, Relaxations: %d, Time: %.3f ms",
+                getVisits(), getEdgeTraversals(), getRelaxations(), executionTime / 1_000_000.0
+        );
+    }
+}
@@ -1,17 +1,51 @@
 package graph;
 
-import com.google.gson.Gson;
 import com.google.gson.annotations.SerializedName;
-import java.io.FileReader;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
 
 public class Graph {
     private int n;
     private boolean directed;
-    private List<List<Edge>> adjList;
     private int source;
     private String weightModel;
 
+    // Frozen CSR form: edges of v are [offsets[v], offsets[v + 1])
+    private int[] offsets;
+    private int[] targets;
+    private int[] weights;
+
+    // Same CSR arrays when the graph is backed by buffers (e.g. a mapped file);
+    // the int[] fields are null in that case
+    private IntBuffer offsetBuffer;
+    private IntBuffer targetBuffer;
+    private IntBuffer weightBuffer;
+
+    // Targets and weights read from disk through a block cache, with the
+    // offsets array in memory; see BinaryGraphFormat.open
+    private BlockCache blockCache;
+
+    // Staging arrays filled by addEdge, released on freeze()
+    private int[] pendingFrom;
+    private int[] pendingTo;
+    private int[] pendingWeight;
+    private int pendingCount;
+
+    // Transposed graph, built on demand and dropped when edges are added
+    private Graph reverse;
+
+    // Bumped on every structural change so caches can tell they are stale
+    private long version;
+
+    // Bumped on every change that can alter a weight: setWeight and added edges
+    private long weightVersion;
+
     public static class Edge {
         @SerializedName("u")
         public int from;
@@ -29,48 +63,544 @@ public class Graph {
         }
     }
 
-    private static class GraphData {
-        boolean directed;
-        int n;
-        List<Edge> edges;
-        int source;
-        String weight_model;
-    }
-
     public Graph(int n, boolean directed) {
         this.n = n;
         this.directed = directed;
-        this.adjList = new ArrayList<>();
-        for (int i = 0; i < n; i++) {
-            adjList.add(new ArrayList<>());
+        this.offsets = new int[n + 1];
+        this.targets = new int[0];
+        this.weights = new int[0];
+    }
+
+    /**
+     * Load graph from JSON file. The document is streamed with JsonReader and
+     * edges go straight into the primitive staging arrays, so the edge list
+     * is never held as objects.
+     */
+    public static Graph fromJson(String filename) throws IOException {
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(Paths.get(filename)))) {
+            return readJson(reader);
+        }
+    }
+
+    private static Graph readJson(JsonReader reader) throws IOException {
+        JsonHeader header = new JsonHeader();
+        Graph[] graph = new Graph[1];
+        // Edges seen before "n" are buffered as flat (u, v, w) triples
+        IntBag early = new IntBag(48);
+
+        readJson(reader, header, (u, v, w) -> {
+            if (graph[0] == null && header.n >= 0) {
+                graph[0] = new Graph(header.n, header.directed);
+            }
+            if (graph[0] != null) {
+                graph[0].addEdge(u, v, w);
+            } else {
+                early.add(u);
+                early.add(v);
+                early.add(w);
+            }
+        });
+
+        Graph g = graph[0] != null ? graph[0] : new Graph(header.n, header.directed);
+        g.directed = header.directed;
+        for (int i = 0; i < early.size(); i += 3) {
+            g.addEdge(early.get(i), early.get(i + 1), early.get(i + 2));
         }
+        g.source = header.source;
+        g.weightModel = header.weightModel;
+        g.freeze();
+        return g;
     }
 
     /**
-     * Load graph from JSON file
+     * Load graph from JSON file straight into direct buffers, as offHeap()
+     * does for an edge source. The file is streamed twice, once to count
+     * out-degrees and once to place the edges, so the heap only ever holds
+     * arrays proportional to the node count. Edges of each node keep their
+     * file order, as with fromJson.
      */
-    public static Graph fromJson(String filename) throws Exception {
-        Gson gson = new Gson();
-        GraphData data = gson.fromJson(new FileReader(filename), GraphData.class);
+    public static Graph fromJsonOffHeap(String filename) throws IOException {
+        JsonHeader header = new JsonHeader();
+        int[][] degree = {new int[16]};
+        long[] m = new long[1];
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(Paths.get(filename)))) {
+            readJson(reader, header, (u, v, w) -> {
+                if (u < 0 || v < 0 || (header.n >= 0 && Math.max(u, v) >= header.n)) {
+                    throw new IndexOutOfBoundsException("Edge " + u + " -> " + v + " outside [0, " + header.n + ")");
+                }
+                if (u >= degree[0].length) {
+                    degree[0] = Arrays.copyOf(degree[0], Math.max(u + 1, 2 * degree[0].length));
+                }
+                degree[0][u]++;
+                m[0]++;
+            });
+        }
+        int n = header.n;
+        int[] cursor = Arrays.copyOf(degree[0], n);
+        for (int v = n; v < degree[0].length; v++) {
+            if (degree[0][v] != 0) {
+                throw new IndexOutOfBoundsException("Edge from " + v + " outside [0, " + n + ")");
+            }
+        }
 
-        Graph g = new Graph(data.n, data.directed);
-        g.source = data.source;
-        g.weightModel = data.weight_model;
+        IntBuffer tgt = allocateDirect(m[0]);
+        IntBuffer wgt = allocateDirect(m[0]);
+        IntBuffer off = allocateDirect(n + 1L);
+        int pos = 0;
+        for (int v = 0; v < n; v++) {
+            off.put(v, pos);
+            int d = cursor[v];
+            cursor[v] = pos;
+            pos += d;
+        }
+        off.put(n, pos);
 
-        for (Edge e : data.edges) {
-            g.addEdge(e.from, e.to, e.weight);
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(Paths.get(filename)))) {
+            readJson(reader, new JsonHeader(), (u, v, w) -> {
+                if (v >= n) {
+                    throw new IndexOutOfBoundsException("Edge " + u + " -> " + v + " outside [0, " + n + ")");
+                }
+                int at = cursor[u]++;
+                tgt.put(at, v);
+                wgt.put(at, w);
+            });
         }
 
+        Graph g = fromBuffers(n, header.directed, off, tgt, wgt);
+        g.source = header.source;
+        g.weightModel = header.weightModel;
         return g;
     }
 
+    // Top-level fields of a graph document
+    private static final class JsonHeader {
+        private int n = -1;
+        private boolean directed = true;
+        private int source;
+        private String weightModel;
+    }
+
+    private interface JsonEdgeVisitor {
+        void edge(int u, int v, int w);
+    }
+
+    // Stream one document: header fields into header, every edge to edges
+    // in file order. Throws if "n" is missing.
+    private static void readJson(JsonReader reader, JsonHeader header, JsonEdgeVisitor edges) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "n":
+                    header.n = reader.nextInt();
+                    break;
+                case "directed":
+                    header.directed = reader.nextBoolean();
+                    break;
+                case "source":
+                    header.source = reader.nextInt();
+                    break;
+                case "weight_model":
+                    header.weightModel = reader.nextString();
+                    break;
+                case "edges":
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        int u = 0, v = 0, w = 0;
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            switch (reader.nextName()) {
+                                case "u": u = reader.nextInt(); break;
+                                case "v": v = reader.nextInt(); break;
+                                case "w": w = reader.nextInt(); break;
+                                default: reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                        edges.edge(u, v, w);
+                    }
+                    reader.endArray();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (header.n < 0) {
+            throw new IOException("Graph JSON is missing \"n\"");
+        }
+    }
+
+    /**
+     * Stage an edge. The first read afterwards rebuilds the CSR arrays in
+     * O(n + m), so add edges in batches rather than interleaving them with
+     * reads. Graphs backed by buffers or by a file opened with
+     * BinaryGraphFormat.open are read-only; thawing them would copy every
+     * edge onto the heap.
+     */
     public void addEdge(int from, int to, int weight) {
-        adjList.get(from).add(new Edge(from, to, weight));
+        if (from < 0 || from >= n || to < 0 || to >= n) {
+            throw new IndexOutOfBoundsException("Edge " + from + " -> " + to + " outside [0, " + n + ")");
+        }
+        if (pendingFrom == null) {
+            if (blockCache != null) {
+                throw new UnsupportedOperationException("Disk-backed graphs are read-only");
+            }
+            if (targets == null) {
+                throw new UnsupportedOperationException("Buffer-backed graphs are read-only");
+            }
+            thaw();
+        }
+        reverse = null;
+        version++;
+        weightVersion++;
+        if (pendingCount == pendingFrom.length) {
+            int capacity = Math.max(16, pendingCount + (pendingCount >> 1));
+            pendingFrom = Arrays.copyOf(pendingFrom, capacity);
+            pendingTo = Arrays.copyOf(pendingTo, capacity);
+            pendingWeight = Arrays.copyOf(pendingWeight, capacity);
+        }
+        pendingFrom[pendingCount] = from;
+        pendingTo[pendingCount] = to;
+        pendingWeight[pendingCount] = weight;
+        pendingCount++;
+    }
+
+    /**
+     * Build the CSR arrays from the staged edges. Edges of each node keep
+     * their insertion order. Called automatically by the accessors.
+     */
+    public void freeze() {
+        if (pendingFrom == null) {
+            return;
+        }
+
+        int m = pendingCount;
+        int[] off = new int[n + 1];
+        boolean sorted = true;
+        for (int i = 0; i < m; i++) {
+            off[pendingFrom[i] + 1]++;
+            if (i > 0 && pendingFrom[i] < pendingFrom[i - 1]) {
+                sorted = false;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            off[v + 1] += off[v];
+        }
+
+        int[] tgt;
+        int[] wgt;
+        if (sorted) {
+            // Edges arrived grouped by source (the usual file layout), so the
+            // staging arrays already are the CSR arrays
+            pendingFrom = null;
+            tgt = pendingTo.length == m ? pendingTo : Arrays.copyOf(pendingTo, m);
+            pendingTo = null;
+            wgt = pendingWeight.length == m ? pendingWeight : Arrays.copyOf(pendingWeight, m);
+        } else {
+            tgt = new int[m];
+            wgt = new int[m];
+            int[] cursor = Arrays.copyOf(off, n);
+            for (int i = 0; i < m; i++) {
+                int pos = cursor[pendingFrom[i]]++;
+                tgt[pos] = pendingTo[i];
+                wgt[pos] = pendingWeight[i];
+            }
+        }
+
+        offsets = off;
+        targets = tgt;
+        weights = wgt;
+        pendingFrom = null;
+        pendingTo = null;
+        pendingWeight = null;
+        pendingCount = 0;
+    }
+
+    // Move the frozen edges back into the staging arrays so more can be
+    // added. Targets and weights already are in staging layout, so only the
+    // source column is rebuilt.
+    private void thaw() {
+        int m = targets.length;
+        int[] src = new int[m];
+        for (int v = 0; v < n; v++) {
+            Arrays.fill(src, offsets[v], offsets[v + 1], v);
+        }
+        pendingFrom = src;
+        pendingTo = targets;
+        pendingWeight = weights;
+        pendingCount = m;
+        offsets = new int[n + 1];
+        targets = new int[0];
+        weights = new int[0];
+    }
+
+    /**
+     * Wrap CSR arrays that were built elsewhere. The arrays are used as-is,
+     * not copied.
+     */
+    public static Graph fromCsr(int n, boolean directed, int[] offsets, int[] targets, int[] weights) {
+        Graph g = new Graph(n, directed);
+        g.offsets = offsets;
+        g.targets = targets;
+        g.weights = weights;
+        return g;
+    }
+
+    /**
+     * Wrap CSR data held in int buffers, e.g. views of a memory-mapped file.
+     * Adjacency is read straight from the buffers.
+     */
+    public static Graph fromBuffers(int n, boolean directed, IntBuffer offsets,
+                                    IntBuffer targets, IntBuffer weights) {
+        Graph g = new Graph(n, directed);
+        g.offsets = null;
+        g.targets = null;
+        g.weights = null;
+        g.offsetBuffer = offsets;
+        g.targetBuffer = targets;
+        g.weightBuffer = weights;
+        return g;
+    }
+
+    /**
+     * Build a graph whose CSR lives in direct (off-heap) buffers, filling
+     * them straight from an edge source in two passes: degrees, then edges.
+     * Nothing proportional to the edge count touches the heap. Each buffer is
+     * limited to 2^31 bytes, i.e. about 536 million edges.
+     */
+    public static Graph offHeap(int n, boolean directed, BinaryGraphFormat.EdgeSource edges) {
+        IntBuffer off = allocateDirect(n + 1L);
+        IntBag tgtBag = new IntBag(64);
+        IntBag wgtBag = new IntBag(64);
+        long m = 0;
+        for (int u = 0; u < n; u++) {
+            off.put(u, (int) m);
+            tgtBag.clear();
+            wgtBag.clear();
+            edges.edgesOf(u, tgtBag, wgtBag);
+            m += tgtBag.size();
+        }
+        off.put(n, (int) m);
+
+        IntBuffer tgt = allocateDirect(m);
+        IntBuffer wgt = allocateDirect(m);
+        for (int u = 0; u < n; u++) {
+            tgtBag.clear();
+            wgtBag.clear();
+            edges.edgesOf(u, tgtBag, wgtBag);
+            int pos = off.get(u);
+            if (tgtBag.size() != off.get(u + 1) - pos) {
+                throw new IllegalStateException("Edge source gave node " + u + " different edges on the second pass");
+            }
+            for (int i = 0; i < tgtBag.size(); i++) {
+                tgt.put(pos + i, tgtBag.get(i));
+                wgt.put(pos + i, wgtBag.get(i));
+            }
+        }
+        return fromBuffers(n, directed, off, tgt, wgt);
+    }
+
+    /**
+     * Copy of this graph with its CSR moved into direct buffers.
+     */
+    public Graph toOffHeap() {
+        freeze();
+        Graph g = offHeap(n, directed, (u, tgt, wgt) -> {
+            for (int i = edgeStart(u), end = edgeEnd(u); i < end; i++) {
+                tgt.add(target(i));
+                wgt.add(weight(i));
+            }
+        });
+        g.source = source;
+        g.weightModel = weightModel;
+        return g;
+    }
+
+    /** True if adjacency is read from buffers (off-heap or mapped) rather than arrays. */
+    public boolean isBufferBacked() {
+        freeze();
+        return offsets == null;
+    }
+
+    /**
+     * True if targets and weights are read from disk through a block cache.
+     * Reads go through the cache's unsynchronized LRU state, so such a graph
+     * must only be used from one thread; the parallel engines reject it.
+     */
+    public boolean isDiskBacked() {
+        freeze();
+        return blockCache != null;
+    }
+
+    private static IntBuffer allocateDirect(long count) {
+        if (count * Integer.BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(count + " ints do not fit in one direct buffer");
+        }
+        return ByteBuffer.allocateDirect((int) (count * Integer.BYTES))
+                .order(ByteOrder.nativeOrder())
+                .asIntBuffer();
+    }
+
+    static Graph fromBlockCache(int n, boolean directed, int[] offsets, BlockCache cache) {
+        Graph g = new Graph(n, directed);
+        g.offsets = offsets;
+        g.targets = null;
+        g.weights = null;
+        g.blockCache = cache;
+        return g;
+    }
+
+    long getBlockReads() {
+        return blockCache != null ? blockCache.getReads() : 0;
+    }
+
+    void closeBlockCache() throws IOException {
+        if (blockCache != null) {
+            blockCache.close();
+        }
+    }
+
+    public void setSource(int source) { this.source = source; }
+    public void setWeightModel(String weightModel) { this.weightModel = weightModel; }
+
+    /**
+     * Graph with every edge reversed, sharing the same weights. Built once
+     * and cached until the graph is modified. The reverse of a buffer-backed
+     * graph is kept off-heap as well.
+     */
+    public Graph getReverse() {
+        freeze();
+        if (reverse != null) {
+            return reverse;
+        }
+
+        int m = getEdgeCount();
+        int[] off = new int[n + 1];
+        for (int i = 0; i < m; i++) {
+            off[target(i) + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            off[v + 1] += off[v];
+        }
+
+        int[] cursor = Arrays.copyOf(off, n);
+        Graph r;
+        if (offsets == null) {
+            IntBuffer tgt = allocateDirect(m);
+            IntBuffer wgt = allocateDirect(m);
+            for (int u = 0; u < n; u++) {
+                for (int i = edgeStart(u), end = edgeEnd(u); i < end; i++) {
+                    int pos = cursor[target(i)]++;
+                    tgt.put(pos, u);
+                    wgt.put(pos, weight(i));
+                }
+            }
+            r = fromBuffers(n, directed, allocateDirect(n + 1L).put(off).flip(), tgt, wgt);
+        } else {
+            int[] tgt = new int[m];
+            int[] wgt = new int[m];
+            for (int u = 0; u < n; u++) {
+                for (int i = edgeStart(u), end = edgeEnd(u); i < end; i++) {
+                    int pos = cursor[target(i)]++;
+                    tgt[pos] = u;
+                    wgt[pos] = weight(i);
+                }
+            }
+            r = fromCsr(n, directed, off, tgt, wgt);
+        }
+        r.source = source;
+        r.weightModel = weightModel;
+        r.reverse = this;
+        reverse = r;
+        return r;
     }
 
+    public long getVersion() { return version; }
+    public long getWeightVersion() { return weightVersion; }
     public int getN() { return n; }
-    public List<Edge> getEdges(int v) { return adjList.get(v); }
     public int getSource() { return source; }
     public String getWeightModel() { return weightModel; }
     public boolean isDirected() { return directed; }
-}
\ No newline at end of file
+
+    public int getEdgeCount() {
+        freeze();
+        if (targets != null) {
+            return targets.length;
+        }
+        return targetBuffer != null ? targetBuffer.limit() : blockCache.getEdgeCount();
+    }
+
+    /** Index of the first outgoing edge of v. */
+    public int edgeStart(int v) {
+        freeze();
+        return offsets != null ? offsets[v] : offsetBuffer.get(v);
+    }
+
+    /** One past the index of the last outgoing edge of v. */
+    public int edgeEnd(int v) {
+        freeze();
+        return offsets != null ? offsets[v + 1] : offsetBuffer.get(v + 1);
+    }
+
+    public int degree(int v) {
+        return edgeEnd(v) - edgeStart(v);
+    }
+
+    public int target(int i) {
+        if (targets != null) {
+            return targets[i];
+        }
+        return targetBuffer != null ? targetBuffer.get(i) : blockCache.target(i);
+    }
+
+    public int weight(int i) {
+        if (weights != null) {
+            return weights[i];
+        }
+        return weightBuffer != null ? weightBuffer.get(i) : blockCache.weight(i);
+    }
+
+    /**
+     * Change the weight of edge i in place. The structure is unchanged, so
+     * only the weight version is bumped: caches of orders and components
+     * stay valid, while anything holding weights must check
+     * getWeightVersion(). The cached reverse graph, which has its own copy
+     * of the weights, is dropped. Mapped and disk-backed graphs are
+     * read-only.
+     */
+    public void setWeight(int i, int weight) {
+        freeze();
+        if (weights != null) {
+            weights[i] = weight;
+        } else if (weightBuffer != null && !weightBuffer.isReadOnly()) {
+            weightBuffer.put(i, weight);
+        } else {
+            throw new UnsupportedOperationException("Graph weights are read-only");
+        }
+        reverse = null;
+        weightVersion++;
+    }
+
+    /** Index of the first edge from -> to, or -1 if there is none. */
+    public int findEdge(int from, int to) {
+        for (int i = edgeStart(from), end = edgeEnd(from); i < end; i++) {
+            if (target(i) == to) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Materialize the outgoing edges of v as objects. Kept for callers that
+     * are not on a hot path; algorithms should use edgeStart/edgeEnd instead.
+     */
+    public List<Edge> getEdges(int v) {
+        List<Edge> edges = new ArrayList<>(degree(v));
+        for (int i = edgeStart(v), end = edgeEnd(v); i < end; i++) {
+            edges.add(new Edge(v, target(i), weight(i)));
+        }
+        return edges;
+    }
+}
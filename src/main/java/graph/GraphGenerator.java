@@ -0,0 +1,268 @@
+package graph;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Seeded synthetic graphs for scaling tests. The out-edges of every node are
+ * drawn from a random stream seeded by (seed, node) alone, so any node's
+ * edges can be regenerated on demand and the writers stream the graph to
+ * disk without ever holding it in memory.
+ *
+ * Shapes:
+ *   LAYERED     DAG of layers, edges only into the next layer
+ *   PLANTED_SCC clusters of componentSize nodes closed by a ring, with the
+ *               remaining edges inside the cluster or to a later cluster, so
+ *               the SCCs are exactly the clusters
+ *   CHAIN       path 0 -> 1 -> ... -> n-1 plus short forward skips
+ *   POWER_LAW   out-degrees from a Pareto distribution and targets skewed
+ *               towards low ids; cyclic
+ *
+ * Weight models follow the dataset schema: "edge" draws an independent
+ * weight per edge, "node" gives every edge the weight (duration) of its
+ * source node.
+ */
+public class GraphGenerator {
+    public enum Shape { LAYERED, PLANTED_SCC, CHAIN, POWER_LAW }
+
+    private static final int CHAIN_SKIP = 16;
+
+    private Shape shape;
+    private int n;
+    private long edges;
+    private long seed;
+    private String weightModel = "edge";
+    private int maxWeight = 10;
+    private int componentSize = 32;
+    private int layerWidth;
+
+    // Per-node random stream (SplitMix64)
+    private long state;
+
+    /**
+     * Graph with n nodes and about the given number of edges. LAYERED leaves
+     * the last layer without out-edges and POWER_LAW only matches the count
+     * on average.
+     */
+    public GraphGenerator(Shape shape, int n, long edges, long seed) {
+        if (n <= 0 || edges < 0) {
+            throw new IllegalArgumentException("Need n > 0 and edges >= 0");
+        }
+        this.shape = shape;
+        this.n = n;
+        this.edges = edges;
+        this.seed = seed;
+        this.layerWidth = Math.max(1, (int) Math.sqrt(n));
+    }
+
+    public GraphGenerator setWeightModel(String weightModel) {
+        if (!weightModel.equals("edge") && !weightModel.equals("node")) {
+            throw new IllegalArgumentException("Unknown weight model: " + weightModel);
+        }
+        this.weightModel = weightModel;
+        return this;
+    }
+
+    public GraphGenerator setMaxWeight(int maxWeight) {
+        this.maxWeight = maxWeight;
+        return this;
+    }
+
+    public GraphGenerator setComponentSize(int componentSize) {
+        this.componentSize = componentSize;
+        return this;
+    }
+
+    public GraphGenerator setLayerWidth(int layerWidth) {
+        this.layerWidth = layerWidth;
+        return this;
+    }
+
+    public int getN() { return n; }
+    public String getWeightModel() { return weightModel; }
+
+    /**
+     * Append the out-edges of u. Calling this twice for the same node gives
+     * the same edges.
+     */
+    public void edgesOf(int u, IntBag targets, IntBag weights) {
+        reseed(u);
+        int nodeWeight = 1 + nextInt(maxWeight);
+        int from = targets.size();
+
+        switch (shape) {
+            case LAYERED:
+                layeredEdges(u, targets);
+                break;
+            case PLANTED_SCC:
+                plantedEdges(u, targets);
+                break;
+            case CHAIN:
+                chainEdges(u, targets);
+                break;
+            case POWER_LAW:
+                powerLawEdges(u, targets);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown shape: " + shape);
+        }
+
+        boolean perNode = weightModel.equals("node");
+        for (int i = from; i < targets.size(); i++) {
+            weights.add(perNode ? nodeWeight : 1 + nextInt(maxWeight));
+        }
+    }
+
+    private void layeredEdges(int u, IntBag targets) {
+        int next = (u / layerWidth + 1) * layerWidth;
+        if (next >= n) {
+            return;
+        }
+        int span = Math.min(layerWidth, n - next);
+        for (int k = degree(); k > 0; k--) {
+            targets.add(next + nextInt(span));
+        }
+    }
+
+    private void plantedEdges(int u, IntBag targets) {
+        int base = u - u % componentSize;
+        int size = Math.min(componentSize, n - base);
+        int later = n - base - size;
+        int d = degree();
+        if (size > 1) {
+            targets.add(base + (u - base + 1) % size);
+            d--;
+        }
+        for (; d > 0; d--) {
+            if (later > 0 && (size == 1 || nextInt(2) == 0)) {
+                targets.add(base + size + nextInt(later));
+            } else if (size > 1) {
+                targets.add(base + nextInt(size));
+            }
+        }
+    }
+
+    private void chainEdges(int u, IntBag targets) {
+        if (u + 1 >= n) {
+            return;
+        }
+        targets.add(u + 1);
+        int span = Math.min(CHAIN_SKIP, n - u - 1);
+        for (int k = degree() - 1; k > 0; k--) {
+            targets.add(u + 1 + nextInt(span));
+        }
+    }
+
+    private void powerLawEdges(int u, IntBag targets) {
+        // Pareto with exponent 2 has mean 2 * minimum
+        double mean = (double) edges / n;
+        double draw = mean / 2 / Math.sqrt(1 - nextDouble());
+        int d = (int) Math.min(n, draw + nextDouble());
+        for (; d > 0; d--) {
+            double r = nextDouble();
+            targets.add((int) (n * r * r * r));
+        }
+    }
+
+    /** floor or ceil of edges / n, so the total comes out right on average. */
+    private int degree() {
+        long whole = edges / n;
+        long rest = edges % n;
+        return (int) whole + (nextDouble() * n < rest ? 1 : 0);
+    }
+
+    private void reseed(int u) {
+        state = mix(seed * 0x9E3779B97F4A7C15L + u);
+    }
+
+    private long nextLong() {
+        state += 0x9E3779B97F4A7C15L;
+        return mix(state);
+    }
+
+    private int nextInt(int bound) {
+        return (int) ((nextLong() >>> 33) % bound);
+    }
+
+    private double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Write the graph in the JSON dataset schema, one edge per line.
+     */
+    public void writeJson(String filename) throws IOException {
+        IntBag targets = new IntBag(64);
+        IntBag weights = new IntBag(64);
+        try (Writer out = Files.newBufferedWriter(Paths.get(filename), StandardCharsets.UTF_8)) {
+            out.write("{\n  \"directed\": true,\n  \"n\": " + n + ",\n  \"edges\": [");
+            boolean first = true;
+            for (int u = 0; u < n; u++) {
+                targets.clear();
+                weights.clear();
+                edgesOf(u, targets, weights);
+                for (int i = 0; i < targets.size(); i++) {
+                    out.write(first ? "\n    {\"u\": " : ",\n    {\"u\": ");
+                    out.write(Integer.toString(u));
+                    out.write(", \"v\": ");
+                    out.write(Integer.toString(targets.get(i)));
+                    out.write(", \"w\": ");
+                    out.write(Integer.toString(weights.get(i)));
+                    out.write('}');
+                    first = false;
+                }
+            }
+            out.write("\n  ],\n  \"source\": 0,\n  \"weight_model\": \"" + weightModel + "\"\n}\n");
+        }
+    }
+
+    public void writeBinary(String filename) throws IOException {
+        BinaryGraphFormat.write(filename, n, true, 0, weightModel, this::edgesOf);
+    }
+
+    /** Write JSON or binary depending on the file extension. */
+    public void write(String filename) throws IOException {
+        if (filename.endsWith(BinaryGraphFormat.EXTENSION)) {
+            writeBinary(filename);
+        } else {
+            writeJson(filename);
+        }
+    }
+
+    /**
+     * Build the graph in direct buffers, so even very large graphs leave the
+     * heap free for the algorithms' working arrays.
+     */
+    public Graph generateOffHeap() {
+        Graph graph = Graph.offHeap(n, true, this::edgesOf);
+        graph.setWeightModel(weightModel);
+        return graph;
+    }
+
+    /** Build the graph in memory; only sensible for sizes that fit. */
+    public Graph generate() {
+        Graph graph = new Graph(n, true);
+        IntBag targets = new IntBag(64);
+        IntBag weights = new IntBag(64);
+        for (int u = 0; u < n; u++) {
+            targets.clear();
+            weights.clear();
+            edgesOf(u, targets, weights);
+            for (int i = 0; i < targets.size(); i++) {
+                graph.addEdge(u, targets.get(i), weights.get(i));
+            }
+        }
+        graph.setWeightModel(weightModel);
+        graph.freeze();
+        return graph;
+    }
+}
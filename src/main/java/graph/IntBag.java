@@ -0,0 +1,45 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * Growable int array used to collect frontiers and other node lists
+ * without boxing.
+ */
+public final class IntBag {
+    private int[] data;
+    private int size;
+
+    public IntBag(int capacity) {
+        data = new int[Math.max(4, capacity)];
+    }
+
+    public void add(int value) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, size * 2);
+        }
+        data[size++] = value;
+    }
+
+    public void addAll(IntBag other) {
+        if (size + other.size > data.length) {
+            data = Arrays.copyOf(data, Math.max(size + other.size, size * 2));
+        }
+        System.arraycopy(other.data, 0, data, size, other.size);
+        size += other.size;
+    }
+
+    public int get(int index) { return data[index]; }
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public void clear() { size = 0; }
+
+    /** Copy the values to dest starting at offset. */
+    public void copyTo(int[] dest, int offset) {
+        System.arraycopy(data, 0, dest, offset, size);
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+}
@@ -11,4 +11,9 @@ public interface Metrics {
     void startTimer();
     void stopTimer();
     void reset();
-}
\ No newline at end of file
+
+    // Bulk counts, so hot loops can count in locals and report once
+    void addVisits(long count);
+    void addEdgeTraversals(long count);
+    void addRelaxations(long count);
+}
@@ -16,6 +16,15 @@ public class MetricsImpl implements Metrics {
     @Override
     public void incrementRelaxations() { relaxations++; }
 
+    @Override
+    public void addVisits(long count) { visits += count; }
+
+    @Override
+    public void addEdgeTraversals(long count) { edgeTraversals += count; }
+
+    @Override
+    public void addRelaxations(long count) { relaxations += count; }
+
     @Override
     public long getVisits() { return visits; }
 
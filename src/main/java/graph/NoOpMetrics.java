@@ -0,0 +1,56 @@
+package graph;
+
+/**
+ * Metrics that record nothing. Every method is empty, so once a call site
+ * only ever sees this class the JIT inlines the calls away.
+ */
+public final class NoOpMetrics implements Metrics {
+    public static final NoOpMetrics INSTANCE = new NoOpMetrics();
+
+    private NoOpMetrics() {
+    }
+
+    @Override
+    public void incrementVisits() { }
+
+    @Override
+    public void incrementEdgeTraversals() { }
+
+    @Override
+    public void incrementRelaxations() { }
+
+    @Override
+    public void addVisits(long count) { }
+
+    @Override
+    public void addEdgeTraversals(long count) { }
+
+    @Override
+    public void addRelaxations(long count) { }
+
+    @Override
+    public long getVisits() { return 0; }
+
+    @Override
+    public long getEdgeTraversals() { return 0; }
+
+    @Override
+    public long getRelaxations() { return 0; }
+
+    @Override
+    public long getExecutionTimeNanos() { return 0; }
+
+    @Override
+    public void startTimer() { }
+
+    @Override
+    public void stopTimer() { }
+
+    @Override
+    public void reset() { }
+
+    @Override
+    public String toString() {
+        return "Metrics disabled";
+    }
+}
@@ -1,65 +1,123 @@
 package graph;
 
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Results sink for the three result tables. Rows are formatted on the
+ * calling thread (always with Locale.ROOT, so decimals use a dot) and handed
+ * to a single background writer that keeps the files open and flushes
+ * whenever its queue runs dry. The log methods are safe to call from any
+ * number of threads; close() drains the queue and closes the files.
+ */
+public class ResultsLogger implements AutoCloseable {
+    /** CSV with a header row, or one JSON object per line keyed by column name. */
+    public enum Format { CSV, JSON_LINES }
 
-public class ResultsLogger {
     private static final String RESULTS_DIR = "results/";
-    private static final String SCC_RESULTS = RESULTS_DIR + "scc_results.csv";
-    private static final String TOPO_RESULTS = RESULTS_DIR + "topo_results.csv";
-    private static final String DAGSP_RESULTS = RESULTS_DIR + "dagsp_results.csv";
+    private static final int SCC = 0;
+    private static final int TOPO = 1;
+    private static final int DAGSP = 2;
+    private static final String[] NAMES = {"scc_results", "topo_results", "dagsp_results"};
+    // TimeMS repeats the median so readers of the older files keep working
+    private static final String[] TIMING_COLUMNS = {
+            "TimeMS", "Trials", "MinMS", "MedianMS", "MeanMS", "P90MS", "P99MS", "StdDevMS"
+    };
+    private static final String[][] COLUMNS = {
+            withTiming("Dataset", "Nodes", "Edges", "Algorithm", "NumSCCs", "Visits", "EdgeTraversals"),
+            withTiming("Dataset", "Nodes", "Edges", "Algorithm", "Success", "Visits", "EdgeTraversals"),
+            withTiming("Dataset", "Nodes", "Edges", "PathType", "Source", "Visits", "EdgeTraversals", "Relaxations")
+    };
 
-    public ResultsLogger() {
-        try {
-            Files.createDirectories(Paths.get(RESULTS_DIR));
-        } catch (IOException e) {
-            e.printStackTrace();
+    // Queue entry: a line for one table, a request to truncate it, or the end marker
+    private static final class Entry {
+        final int table;
+        final String line;
+        final boolean truncate;
+
+        Entry(int table, String line, boolean truncate) {
+            this.table = table;
+            this.line = line;
+            this.truncate = truncate;
         }
     }
 
-    public void initializeCSVs() {
-        initializeSCCResults();
-        initializeTopoResults();
-        initializeDAGSPResults();
+    private static final Entry END = new Entry(-1, null, false);
+
+    private Format format;
+    private Path[] files;
+    private Writer[] writers;
+    private BlockingQueue<Entry> queue;
+    private Thread writerThread;
+    private boolean closed;
+
+    public ResultsLogger() {
+        this(RESULTS_DIR, Format.CSV);
     }
 
-    private void initializeSCCResults() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(SCC_RESULTS))) {
-            writer.println("Dataset,Nodes,Edges,Algorithm,NumSCCs,Visits,EdgeTraversals,TimeMS");
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    public ResultsLogger(Format format) {
+        this(RESULTS_DIR, format);
     }
 
-    private void initializeTopoResults() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(TOPO_RESULTS))) {
-            writer.println("Dataset,Nodes,Edges,Algorithm,Success,Visits,EdgeTraversals,TimeMS");
+    public ResultsLogger(String directory, Format format) {
+        this.format = format;
+        this.files = new Path[NAMES.length];
+        this.writers = new Writer[NAMES.length];
+        this.queue = new LinkedBlockingQueue<>();
+
+        String extension = format == Format.CSV ? ".csv" : ".jsonl";
+        for (int t = 0; t < NAMES.length; t++) {
+            files[t] = Paths.get(directory, NAMES[t] + extension);
+        }
+        try {
+            Files.createDirectories(Paths.get(directory));
         } catch (IOException e) {
             e.printStackTrace();
         }
+
+        writerThread = new Thread(this::drainLoop, "results-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
     }
 
-    private void initializeDAGSPResults() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(DAGSP_RESULTS))) {
-            writer.println("Dataset,Nodes,Edges,PathType,Source,Visits,EdgeTraversals,Relaxations,TimeMS");
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Start every table afresh. Without this, rows are appended to whatever
+     * the files already hold.
+     */
+    public void initializeCSVs() {
+        for (int t = 0; t < NAMES.length; t++) {
+            enqueue(new Entry(t, null, true));
+            if (format == Format.CSV) {
+                enqueue(new Entry(t, String.join(",", COLUMNS[t]), false));
+            }
         }
     }
 
+    private static String[] withTiming(String... columns) {
+        String[] all = Arrays.copyOf(columns, columns.length + TIMING_COLUMNS.length);
+        System.arraycopy(TIMING_COLUMNS, 0, all, columns.length, TIMING_COLUMNS.length);
+        return all;
+    }
+
     public void logSCCResults(String dataset, int nodes, int edges,
                               String algorithm, int numSCCs,
                               long visits, long edgeTraversals, double timeMS) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(SCC_RESULTS, true))) {
-            writer.printf("%s,%d,%d,%s,%d,%d,%d,%.3f%n",
-                    dataset, nodes, edges, algorithm, numSCCs,
-                    visits, edgeTraversals, timeMS);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        logSCCResults(dataset, nodes, edges, algorithm, numSCCs, visits, edgeTraversals,
+                TimingStats.single(Math.round(timeMS * 1e6)));
+    }
+
+    public void logSCCResults(String dataset, int nodes, int edges,
+                              String algorithm, int numSCCs,
+                              long visits, long edgeTraversals, TimingStats timing) {
+        row(SCC, timing, dataset, nodes, edges, algorithm, numSCCs, visits, edgeTraversals);
     }
 
     /**
@@ -68,34 +126,219 @@ public class ResultsLogger {
     public void logTopoResults(String dataset, int nodes, int edges,
                                String algorithm, boolean success,
                                long visits, long edgeTraversals, double timeMS) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(TOPO_RESULTS, true))) {
-            writer.printf("%s,%d,%d,%s,%s,%d,%d,%.3f%n",
-                    dataset, nodes, edges, algorithm, success ? "Yes" : "No",
-                    visits, edgeTraversals, timeMS);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        logTopoResults(dataset, nodes, edges, algorithm, success, visits, edgeTraversals,
+                TimingStats.single(Math.round(timeMS * 1e6)));
+    }
+
+    public void logTopoResults(String dataset, int nodes, int edges,
+                               String algorithm, boolean success,
+                               long visits, long edgeTraversals, TimingStats timing) {
+        row(TOPO, timing, dataset, nodes, edges, algorithm, success, visits, edgeTraversals);
     }
 
     public void logDAGSPResults(String dataset, int nodes, int edges,
                                 String pathType, int source,
                                 long visits, long edgeTraversals,
                                 long relaxations, double timeMS) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(DAGSP_RESULTS, true))) {
-            writer.printf("%s,%d,%d,%s,%d,%d,%d,%d,%.3f%n",
-                    dataset, nodes, edges, pathType, source,
-                    visits, edgeTraversals, relaxations, timeMS);
+        logDAGSPResults(dataset, nodes, edges, pathType, source, visits, edgeTraversals, relaxations,
+                TimingStats.single(Math.round(timeMS * 1e6)));
+    }
+
+    public void logDAGSPResults(String dataset, int nodes, int edges,
+                                String pathType, int source,
+                                long visits, long edgeTraversals,
+                                long relaxations, TimingStats timing) {
+        row(DAGSP, timing, dataset, nodes, edges, pathType, source, visits, edgeTraversals, relaxations);
+    }
+
+    private void row(int table, TimingStats timing, Object... fields) {
+        Object[] values = Arrays.copyOf(fields, fields.length + TIMING_COLUMNS.length);
+        int k = fields.length;
+        values[k++] = timing.getMedianMs();
+        values[k++] = timing.getCount();
+        values[k++] = timing.getMinMs();
+        values[k++] = timing.getMedianMs();
+        values[k++] = timing.getMeanMs();
+        values[k++] = timing.getP90Ms();
+        values[k++] = timing.getP99Ms();
+        values[k] = timing.getStdDevMs();
+
+        StringBuilder line = new StringBuilder(96);
+        if (format == Format.CSV) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                appendCsv(line, values[i]);
+            }
+        } else {
+            line.append('{');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(", ");
+                }
+                appendJsonString(line, COLUMNS[table][i]);
+                line.append(": ");
+                appendJson(line, values[i]);
+            }
+            line.append('}');
+        }
+        enqueue(new Entry(table, line.toString(), false));
+    }
+
+    private static void appendCsv(StringBuilder line, Object value) {
+        if (value instanceof Double) {
+            line.append(String.format(Locale.ROOT, "%.3f", (Double) value));
+        } else if (value instanceof Boolean) {
+            line.append((Boolean) value ? "Yes" : "No");
+        } else if (value instanceof String) {
+            String s = (String) value;
+            if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0) {
+                line.append('"').append(s.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(s);
+            }
+        } else {
+            line.append(value);
+        }
+    }
+
+    private static void appendJson(StringBuilder line, Object value) {
+        if (value instanceof Double) {
+            line.append(String.format(Locale.ROOT, "%.3f", (Double) value));
+        } else if (value instanceof String) {
+            appendJsonString(line, (String) value);
+        } else {
+            line.append(value);
+        }
+    }
+
+    private static void appendJsonString(StringBuilder line, String s) {
+        line.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20) {
+                line.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private synchronized void enqueue(Entry entry) {
+        if (closed) {
+            throw new IllegalStateException("ResultsLogger is closed");
+        }
+        queue.add(entry);
+    }
+
+    private void drainLoop() {
+        List<Entry> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                for (Entry entry : batch) {
+                    if (entry == END) {
+                        flushAll();
+                        closeAll();
+                        return;
+                    }
+                    write(entry);
+                }
+                batch.clear();
+                if (queue.isEmpty()) {
+                    flushAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closeAll();
+        }
+    }
+
+    private void write(Entry entry) {
+        int t = entry.table;
+        try {
+            if (entry.truncate) {
+                if (writers[t] != null) {
+                    writers[t].close();
+                }
+                writers[t] = Files.newBufferedWriter(files[t], StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+                return;
+            }
+            if (writers[t] == null) {
+                writers[t] = Files.newBufferedWriter(files[t], StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+            }
+            writers[t].write(entry.line);
+            writers[t].write(System.lineSeparator());
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    private void flushAll() {
+        for (Writer writer : writers) {
+            if (writer != null) {
+                try {
+                    writer.flush();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void closeAll() {
+        for (int t = 0; t < writers.length; t++) {
+            if (writers[t] != null) {
+                try {
+                    writers[t].close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                writers[t] = null;
+            }
+        }
+    }
+
+    /**
+     * Write out every queued row and close the files. Further log calls
+     * throw IllegalStateException.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(END);
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     public void printSummary() {
         System.out.println("\n=== RESULTS SUMMARY ===");
         System.out.println("Results saved to:");
-        System.out.println("  - " + SCC_RESULTS);
-        System.out.println("  - " + TOPO_RESULTS);
-        System.out.println("  - " + DAGSP_RESULTS);
-        System.out.println("\nYou can analyze these CSV files in Excel or any data analysis tool.");
+        for (Path file : files) {
+            System.out.println("  - " + file);
+        }
+        if (format == Format.CSV) {
+            System.out.println("\nYou can analyze these CSV files in Excel or any data analysis tool.");
+        } else {
+            System.out.println("\nEach line of these files is one JSON object.");
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,76 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Summary of repeated timings of one algorithm. Percentiles use the
+ * nearest-rank method; the standard deviation is the sample one (n - 1).
+ */
+public final class TimingStats {
+    private int count;
+    private double minMs;
+    private double medianMs;
+    private double meanMs;
+    private double p90Ms;
+    private double p99Ms;
+    private double stdDevMs;
+
+    private TimingStats() {
+    }
+
+    public static TimingStats of(long[] nanos) {
+        if (nanos.length == 0) {
+            throw new IllegalArgumentException("No samples");
+        }
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+
+        double sum = 0;
+        for (long t : sorted) {
+            sum += t;
+        }
+        double mean = sum / sorted.length;
+        double squares = 0;
+        for (long t : sorted) {
+            squares += (t - mean) * (t - mean);
+        }
+
+        TimingStats stats = new TimingStats();
+        stats.count = sorted.length;
+        stats.minMs = sorted[0] / 1e6;
+        stats.medianMs = sorted.length % 2 == 1
+                ? sorted[sorted.length / 2] / 1e6
+                : (sorted[sorted.length / 2 - 1] + sorted[sorted.length / 2]) / 2e6;
+        stats.meanMs = mean / 1e6;
+        stats.p90Ms = percentile(sorted, 90) / 1e6;
+        stats.p99Ms = percentile(sorted, 99) / 1e6;
+        stats.stdDevMs = sorted.length > 1 ? Math.sqrt(squares / (sorted.length - 1)) / 1e6 : 0;
+        return stats;
+    }
+
+    /** Stats of a single run. */
+    public static TimingStats single(long nanos) {
+        return of(new long[]{nanos});
+    }
+
+    private static long percentile(long[] sorted, int p) {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    public int getCount() { return count; }
+    public double getMinMs() { return minMs; }
+    public double getMedianMs() { return medianMs; }
+    public double getMeanMs() { return meanMs; }
+    public double getP90Ms() { return p90Ms; }
+    public double getP99Ms() { return p99Ms; }
+    public double getStdDevMs() { return stdDevMs; }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "%d trials: min %.3f, median %.3f, mean %.3f, p90 %.3f, p99 %.3f, stddev %.3f ms",
+                count, minMs, medianMs, meanMs, p90Ms, p99Ms, stdDevMs);
+    }
+}
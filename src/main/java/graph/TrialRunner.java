@@ -0,0 +1,55 @@
+package graph;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs an algorithm a number of unmeasured warmup times and then a number of
+ * measured times. The metrics are reset before every run and the time of
+ * each measured run is whatever the algorithm recorded between its own
+ * startTimer and stopTimer, so setup outside that span is not counted.
+ * Afterwards the metrics hold the counters of the last run.
+ */
+public class TrialRunner {
+    private int warmups;
+    private int trials;
+
+    public TrialRunner(int warmups, int trials) {
+        if (warmups < 0 || trials < 1) {
+            throw new IllegalArgumentException("Need warmups >= 0 and trials >= 1");
+        }
+        this.warmups = warmups;
+        this.trials = trials;
+    }
+
+    /** Result of the last measured run together with the timing of all of them. */
+    public static final class Trial<T> {
+        private final T result;
+        private final TimingStats stats;
+
+        Trial(T result, TimingStats stats) {
+            this.result = result;
+            this.stats = stats;
+        }
+
+        public T getResult() { return result; }
+        public TimingStats getStats() { return stats; }
+    }
+
+    public <T> Trial<T> run(Metrics metrics, Supplier<T> body) {
+        for (int i = 0; i < warmups; i++) {
+            metrics.reset();
+            body.get();
+        }
+        long[] samples = new long[trials];
+        T result = null;
+        for (int i = 0; i < trials; i++) {
+            metrics.reset();
+            result = body.get();
+            samples[i] = metrics.getExecutionTimeNanos();
+        }
+        return new Trial<>(result, TimingStats.of(samples));
+    }
+
+    public int getWarmups() { return warmups; }
+    public int getTrials() { return trials; }
+}
@@ -0,0 +1,28 @@
+package graph;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Virtual threads for a build that targets Java 11: the factory is looked up
+ * reflectively, so the same jar uses them on runtimes that have them.
+ */
+public final class VirtualThreads {
+    private VirtualThreads() {
+    }
+
+    /**
+     * One virtual thread per task when the runtime has them, else the
+     * executor made by fallback.
+     */
+    public static ExecutorService perTaskExecutor(Supplier<ExecutorService> fallback) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return fallback.get();
+        }
+    }
+}
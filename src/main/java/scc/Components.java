@@ -0,0 +1,101 @@
+package scc;
+
+import java.util.*;
+
+/**
+ * Flat SCC decomposition: the members of component c are
+ * nodes[offsets[c] .. offsets[c + 1]) and componentOf maps each node back.
+ */
+public class Components {
+    private final int[] componentOf;
+    private final int[] offsets;
+    private final int[] nodes;
+
+    public Components(int[] componentOf, int[] offsets, int[] nodes) {
+        this.componentOf = componentOf;
+        this.offsets = offsets;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Build the flat form from a list of components, e.g. one produced by
+     * an older caller that still works with List<List<Integer>>.
+     */
+    public static Components fromLists(int n, List<List<Integer>> sccs) {
+        int[] componentOf = new int[n];
+        int[] offsets = new int[sccs.size() + 1];
+        int[] nodes = new int[n];
+        int pos = 0;
+        for (int c = 0; c < sccs.size(); c++) {
+            for (int v : sccs.get(c)) {
+                componentOf[v] = c;
+                nodes[pos++] = v;
+            }
+            offsets[c + 1] = pos;
+        }
+        return new Components(componentOf, offsets, nodes);
+    }
+
+    /**
+     * Components numbered in order of their smallest member, members in
+     * ascending order. Any two decompositions of a graph into the same sets
+     * come out identical, whichever algorithm numbered them.
+     */
+    public static Components canonical(int[] componentOf, int count) {
+        int[] id = new int[count];
+        Arrays.fill(id, -1);
+        int[] offsets = new int[count + 1];
+        int next = 0;
+        for (int c : componentOf) {
+            if (id[c] < 0) {
+                id[c] = next++;
+            }
+            offsets[id[c] + 1]++;
+        }
+        for (int c = 0; c < count; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+        int n = componentOf.length;
+        int[] canonicalOf = new int[n];
+        int[] nodes = new int[n];
+        int[] cursor = Arrays.copyOf(offsets, count);
+        for (int v = 0; v < n; v++) {
+            int c = id[componentOf[v]];
+            canonicalOf[v] = c;
+            nodes[cursor[c]++] = v;
+        }
+        return new Components(canonicalOf, offsets, nodes);
+    }
+
+    /** This decomposition renumbered as canonical(componentOf, count()) does. */
+    public Components canonical() {
+        return canonical(componentOf, count());
+    }
+
+    public int count() { return offsets.length - 1; }
+    public int componentOf(int v) { return componentOf[v]; }
+    public int size(int c) { return offsets[c + 1] - offsets[c]; }
+    public int memberStart(int c) { return offsets[c]; }
+    public int memberEnd(int c) { return offsets[c + 1]; }
+    public int member(int i) { return nodes[i]; }
+
+    public int[] getComponentOf() { return componentOf; }
+    public int[] getOffsets() { return offsets; }
+    public int[] getNodes() { return nodes; }
+
+    public List<Integer> members(int c) {
+        List<Integer> list = new ArrayList<>(size(c));
+        for (int i = offsets[c]; i < offsets[c + 1]; i++) {
+            list.add(nodes[i]);
+        }
+        return list;
+    }
+
+    public List<List<Integer>> toLists() {
+        List<List<Integer>> sccs = new ArrayList<>(count());
+        for (int c = 0; c < count(); c++) {
+            sccs.add(members(c));
+        }
+        return sccs;
+    }
+}
@@ -3,50 +3,105 @@ package scc;
 import graph.*;
 import java.util.*;
 
+/**
+ * DAG of strongly connected components. Built from the flat component array
+ * with a counting sort of cross edges by source component and a stamp array
+ * for duplicate removal, so nothing is allocated per edge.
+ */
 public class CondensationGraph {
+    /** Which weight to keep when several edges join the same two components. */
+    public enum WeightPolicy { FIRST, MIN, MAX }
+
     private Graph originalGraph;
-    private List<List<Integer>> sccs;
+    private Components components;
+    private WeightPolicy weightPolicy;
     private Graph condensation;
-    private Map<Integer, Integer> nodeToComponent;
 
     public CondensationGraph(Graph originalGraph, List<List<Integer>> sccs) {
+        this(originalGraph, Components.fromLists(originalGraph.getN(), sccs));
+    }
+
+    public CondensationGraph(Graph originalGraph, Components components) {
+        this(originalGraph, components, WeightPolicy.FIRST);
+    }
+
+    public CondensationGraph(Graph originalGraph, Components components, WeightPolicy weightPolicy) {
         this.originalGraph = originalGraph;
-        this.sccs = sccs;
-        this.nodeToComponent = new HashMap<>();
-        buildMapping();
+        this.components = components;
+        this.weightPolicy = weightPolicy;
         buildCondensation();
     }
 
-    private void buildMapping() {
-        for (int i = 0; i < sccs.size(); i++) {
-            for (int node : sccs.get(i)) {
-                nodeToComponent.put(node, i);
+    private void buildCondensation() {
+        int n = originalGraph.getN();
+        int k = components.count();
+        int[] comp = components.getComponentOf();
+
+        // Count cross edges per source component
+        int[] offsets = new int[k + 1];
+        for (int u = 0; u < n; u++) {
+            int compU = comp[u];
+            for (int i = originalGraph.edgeStart(u), end = originalGraph.edgeEnd(u); i < end; i++) {
+                if (comp[originalGraph.target(i)] != compU) {
+                    offsets[compU + 1]++;
+                }
             }
         }
-    }
+        for (int c = 0; c < k; c++) {
+            offsets[c + 1] += offsets[c];
+        }
 
-    private void buildCondensation() {
-        condensation = new Graph(sccs.size(), true);
-        Set<String> addedEdges = new HashSet<>();
-
-        for (int u = 0; u < originalGraph.getN(); u++) {
-            int compU = nodeToComponent.get(u);
-
-            for (Graph.Edge edge : originalGraph.getEdges(u)) {
-                int v = edge.to;
-                int compV = nodeToComponent.get(v);
-
-                if (compU != compV) {
-                    String edgeKey = compU + "-" + compV;
-                    if (!addedEdges.contains(edgeKey)) {
-                        condensation.addEdge(compU, compV, edge.weight);
-                        addedEdges.add(edgeKey);
-                    }
+        // Bucket them; within a bucket edges keep the order they were seen in
+        int[] targets = new int[offsets[k]];
+        int[] weights = new int[offsets[k]];
+        int[] cursor = Arrays.copyOf(offsets, k);
+        for (int u = 0; u < n; u++) {
+            int compU = comp[u];
+            for (int i = originalGraph.edgeStart(u), end = originalGraph.edgeEnd(u); i < end; i++) {
+                int compV = comp[originalGraph.target(i)];
+                if (compV != compU) {
+                    int pos = cursor[compU]++;
+                    targets[pos] = compV;
+                    weights[pos] = originalGraph.weight(i);
+                }
+            }
+        }
+
+        // Drop duplicates in place: seenBy[t] == c means c -> t is already kept at slot[t]
+        int[] seenBy = new int[k];
+        int[] slot = new int[k];
+        Arrays.fill(seenBy, -1);
+        int write = 0;
+        int start = 0;
+        for (int c = 0; c < k; c++) {
+            int end = offsets[c + 1];
+            offsets[c] = write;
+            for (int i = start; i < end; i++) {
+                int t = targets[i];
+                int w = weights[i];
+                if (seenBy[t] != c) {
+                    seenBy[t] = c;
+                    slot[t] = write;
+                    targets[write] = t;
+                    weights[write] = w;
+                    write++;
+                } else if (weightPolicy == WeightPolicy.MIN) {
+                    weights[slot[t]] = Math.min(weights[slot[t]], w);
+                } else if (weightPolicy == WeightPolicy.MAX) {
+                    weights[slot[t]] = Math.max(weights[slot[t]], w);
                 }
             }
+            start = end;
         }
+        offsets[k] = write;
+
+        condensation = Graph.fromCsr(k, true, offsets,
+                Arrays.copyOf(targets, write), Arrays.copyOf(weights, write));
     }
 
     public Graph getCondensation() { return condensation; }
-    public Map<Integer, Integer> getMapping() { return nodeToComponent; }
-}
\ No newline at end of file
+    public Components getComponents() { return components; }
+
+    /** Component id of every node of the original graph. */
+    public int[] getMapping() { return components.getComponentOf(); }
+}
@@ -0,0 +1,662 @@
+package scc;
+
+import graph.*;
+import java.util.*;
+
+/**
+ * Strongly connected components and their condensation DAG maintained under
+ * edge insertions and deletions.
+ *
+ * Components are kept in a topological order (Pearce-Kelly over the
+ * condensation). An insertion that goes backwards in that order searches
+ * only the components positioned between its endpoints; if it closes a
+ * cycle, the components on the cycle are merged. A deletion inside a
+ * component re-runs Tarjan on that component alone and splits it if needed.
+ *
+ * Component ids live in [0, n). Ids freed by a merge stay in the order as
+ * holes and are reused by later splits, which lets the parts of a split
+ * component take consecutive positions next to where it was.
+ */
+public class DynamicSCC {
+    private int n;
+    private Metrics metrics;
+
+    // Node adjacency, grown per node on demand; parallel edges are kept
+    private int[][] out;
+    private int[] outCount;
+    private int[][] in;
+    private int[] inCount;
+
+    private int[] comp;
+    private boolean[] alive;
+    private int componentCount;
+    private int[][] members;
+    private int[] memberCount;
+
+    // Condensation edges with multiplicities, per component
+    private IntCountMap[] condOut;
+    private IntCountMap[] condIn;
+
+    // Topological order of component ids; dead ids are holes
+    private int[] ord;
+    private int[] idAt;
+
+    // Scratch state
+    private int[] markF;
+    private int[] markB;
+    private int epoch;
+    private int[] stack;
+    private int[] localIndex;
+
+    public DynamicSCC(int n, Metrics metrics) {
+        this.n = n;
+        this.metrics = metrics;
+        this.out = new int[n][];
+        this.outCount = new int[n];
+        this.in = new int[n][];
+        this.inCount = new int[n];
+        this.comp = new int[n];
+        this.alive = new boolean[n];
+        this.members = new int[n][];
+        this.memberCount = new int[n];
+        this.condOut = new IntCountMap[n];
+        this.condIn = new IntCountMap[n];
+        this.ord = new int[n];
+        this.idAt = new int[n];
+        this.markF = new int[n];
+        this.markB = new int[n];
+        this.stack = new int[n];
+        this.localIndex = new int[n];
+
+        for (int v = 0; v < n; v++) {
+            comp[v] = v;
+            alive[v] = true;
+            members[v] = new int[]{v};
+            memberCount[v] = 1;
+            ord[v] = v;
+            idAt[v] = v;
+        }
+        componentCount = n;
+    }
+
+    /**
+     * Start from an existing graph: components come from one Tarjan run and
+     * the holes left by each component are placed right after it.
+     */
+    public DynamicSCC(Graph graph, Metrics metrics) {
+        this(graph.getN(), metrics);
+
+        Components components = new TarjanSCC(graph, new MetricsImpl()).findComponents();
+        int k = components.count();
+        Arrays.fill(alive, false);
+        for (int c = 0; c < k; c++) {
+            alive[c] = true;
+            memberCount[c] = components.size(c);
+            members[c] = new int[memberCount[c]];
+            for (int i = 0; i < memberCount[c]; i++) {
+                int v = components.member(components.memberStart(c) + i);
+                members[c][i] = v;
+                comp[v] = c;
+            }
+        }
+        for (int c = k; c < n; c++) {
+            members[c] = null;
+            memberCount[c] = 0;
+        }
+        componentCount = k;
+
+        // Tarjan emits components in reverse topological order
+        int position = 0;
+        int hole = k;
+        for (int c = k - 1; c >= 0; c--) {
+            place(c, position++);
+            for (int j = 1; j < memberCount[c]; j++) {
+                place(hole++, position++);
+            }
+        }
+
+        for (int u = 0; u < n; u++) {
+            for (int i = graph.edgeStart(u), end = graph.edgeEnd(u); i < end; i++) {
+                int v = graph.target(i);
+                link(u, v);
+                if (comp[u] != comp[v]) {
+                    addCondensationEdge(comp[u], comp[v], 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Insert u -> v, merging every component on a cycle the edge closes.
+     */
+    public void addEdge(int u, int v) {
+        link(u, v);
+        int cu = comp[u];
+        int cv = comp[v];
+        if (cu == cv) {
+            return;
+        }
+        if (addCondensationEdge(cu, cv, 1) > 1 || ord[cu] < ord[cv]) {
+            return;
+        }
+
+        epoch++;
+        IntBag forward = search(cv, condOut, markF, ord[cu], true);
+        IntBag backward = search(cu, condIn, markB, ord[cv], false);
+
+        if (markF[cu] != epoch) {
+            reorder(backward, forward, -1, null);
+            return;
+        }
+
+        // The edge closed a cycle: every component found by both searches is on it
+        IntBag cycle = new IntBag(16);
+        int target = cu;
+        for (int i = 0; i < forward.size(); i++) {
+            int c = forward.get(i);
+            if (markB[c] == epoch) {
+                cycle.add(c);
+                if (memberCount[c] > memberCount[target]) {
+                    target = c;
+                }
+            }
+        }
+        reorder(backward, forward, target, cycle);
+        merge(target, cycle);
+    }
+
+    /**
+     * Remove one u -> v edge. Returns false if there was none. If u and v
+     * shared a component, that component alone is re-examined and split.
+     */
+    public boolean removeEdge(int u, int v) {
+        if (!unlink(u, v)) {
+            return false;
+        }
+        int cu = comp[u];
+        int cv = comp[v];
+        if (cu != cv) {
+            addCondensationEdge(cu, cv, -1);
+            return true;
+        }
+        split(cu);
+        return true;
+    }
+
+    /**
+     * Bounded DFS over the condensation. Forward searches stay at or before
+     * position bound, backward searches at or after it.
+     */
+    private IntBag search(int start, IntCountMap[] adjacency, int[] mark, int bound, boolean forward) {
+        IntBag found = new IntBag(16);
+        int top = 0;
+        stack[top++] = start;
+        mark[start] = epoch;
+        long edgeTraversals = 0;
+
+        while (top > 0) {
+            int c = stack[--top];
+            found.add(c);
+
+            IntCountMap edges = adjacency[c];
+            if (edges == null) {
+                continue;
+            }
+            for (int slot = 0; slot < edges.capacity(); slot++) {
+                int d = edges.keyAt(slot);
+                if (d < 0) {
+                    continue;
+                }
+                edgeTraversals++;
+                boolean inRange = forward ? ord[d] <= bound : ord[d] >= bound;
+                if (inRange && mark[d] != epoch) {
+                    mark[d] = epoch;
+                    stack[top++] = d;
+                }
+            }
+        }
+        metrics.addVisits(found.size());
+        metrics.addEdgeTraversals(edgeTraversals);
+        return found;
+    }
+
+    /**
+     * Reassign the positions of both searched sets. Backward-only components
+     * come first, then the merge target and the ids it absorbs, then the
+     * forward-only components; each group keeps its relative order.
+     */
+    private void reorder(IntBag backward, IntBag forward, int target, IntBag cycle) {
+        IntBag first = new IntBag(backward.size());
+        IntBag last = new IntBag(forward.size());
+        for (int i = 0; i < backward.size(); i++) {
+            int c = backward.get(i);
+            if (cycle == null || markF[c] != epoch) {
+                first.add(c);
+            }
+        }
+        for (int i = 0; i < forward.size(); i++) {
+            int c = forward.get(i);
+            if (cycle == null || markB[c] != epoch) {
+                last.add(c);
+            }
+        }
+
+        long[] b = sortByOrd(first);
+        long[] f = sortByOrd(last);
+        long[] m = new long[cycle == null ? 0 : cycle.size()];
+        int k = 0;
+        if (cycle != null) {
+            m[k++] = ((long) ord[target] << 32) | target;
+            for (int i = 0; i < cycle.size(); i++) {
+                int c = cycle.get(i);
+                if (c != target) {
+                    m[k++] = ((long) ord[c] << 32) | c;
+                }
+            }
+        }
+
+        long[] all = new long[b.length + m.length + f.length];
+        System.arraycopy(b, 0, all, 0, b.length);
+        System.arraycopy(m, 0, all, b.length, m.length);
+        System.arraycopy(f, 0, all, b.length + m.length, f.length);
+        int[] slots = new int[all.length];
+        for (int i = 0; i < all.length; i++) {
+            slots[i] = (int) (all[i] >>> 32);
+        }
+        Arrays.sort(slots);
+        for (int i = 0; i < all.length; i++) {
+            place((int) all[i], slots[i]);
+        }
+    }
+
+    private long[] sortByOrd(IntBag ids) {
+        long[] keys = new long[ids.size()];
+        for (int i = 0; i < keys.length; i++) {
+            int c = ids.get(i);
+            keys[i] = ((long) ord[c] << 32) | c;
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    /**
+     * Fold every component of the cycle into target. Condensation edges
+     * between cycle members disappear; the rest are re-pointed at target.
+     */
+    private void merge(int target, IntBag cycle) {
+        epoch++;
+        for (int i = 0; i < cycle.size(); i++) {
+            markF[cycle.get(i)] = epoch;
+        }
+
+        dropInternal(condOut, target);
+        dropInternal(condIn, target);
+
+        for (int i = 0; i < cycle.size(); i++) {
+            int c = cycle.get(i);
+            if (c == target) {
+                continue;
+            }
+            moveEdges(c, target, condOut, condIn);
+            moveEdges(c, target, condIn, condOut);
+            condOut[c] = null;
+            condIn[c] = null;
+
+            for (int j = 0; j < memberCount[c]; j++) {
+                int v = members[c][j];
+                comp[v] = target;
+                addMember(target, v);
+            }
+            members[c] = null;
+            memberCount[c] = 0;
+            alive[c] = false;
+            componentCount--;
+        }
+    }
+
+    private void dropInternal(IntCountMap[] adjacency, int target) {
+        if (adjacency[target] == null) {
+            return;
+        }
+        for (int d : adjacency[target].keys()) {
+            if (markF[d] == epoch) {
+                adjacency[target].remove(d);
+            }
+        }
+    }
+
+    // Move c's edges in one direction over to target, fixing the mirror entries
+    private void moveEdges(int c, int target, IntCountMap[] adjacency, IntCountMap[] mirror) {
+        IntCountMap edges = adjacency[c];
+        if (edges == null) {
+            return;
+        }
+        for (int slot = 0; slot < edges.capacity(); slot++) {
+            int d = edges.keyAt(slot);
+            if (d < 0 || markF[d] == epoch) {
+                continue;
+            }
+            int count = edges.countAt(slot);
+            mirror[d].remove(c);
+            mirror[d].add(target, count);
+            map(adjacency, target).add(d, count);
+        }
+    }
+
+    /**
+     * Re-run Tarjan on the members of c and, if they no longer form one SCC,
+     * replace c by its parts in consecutive positions.
+     */
+    private void split(int c) {
+        int size = memberCount[c];
+        int[] nodes = Arrays.copyOf(members[c], size);
+        for (int i = 0; i < size; i++) {
+            localIndex[nodes[i]] = i;
+        }
+
+        int[] part = new int[size];
+        int parts = localTarjan(nodes, c, part);
+        if (parts == 1) {
+            return;
+        }
+
+        // Detach c from the condensation; the parts' edges are rebuilt below
+        detach(c, condOut, condIn);
+        detach(c, condIn, condOut);
+
+        // Tarjan numbers parts in reverse topological order
+        int[] ids = claimBlock(c, parts);
+        int[] partSize = new int[parts];
+        for (int p : part) {
+            partSize[p]++;
+        }
+        for (int p = 0; p < parts; p++) {
+            int id = ids[parts - 1 - p];
+            members[id] = new int[partSize[p]];
+            memberCount[id] = 0;
+            alive[id] = true;
+        }
+        for (int i = 0; i < size; i++) {
+            int id = ids[parts - 1 - part[i]];
+            comp[nodes[i]] = id;
+            members[id][memberCount[id]++] = nodes[i];
+        }
+        componentCount += parts - 1;
+
+        epoch++;
+        for (int id : ids) {
+            markF[id] = epoch;
+        }
+        for (int w : nodes) {
+            int cw = comp[w];
+            for (int i = 0; i < outCount[w]; i++) {
+                int z = out[w][i];
+                if (comp[z] != cw) {
+                    addCondensationEdge(cw, comp[z], 1);
+                }
+            }
+            for (int i = 0; i < inCount[w]; i++) {
+                int z = in[w][i];
+                if (markF[comp[z]] != epoch) {
+                    addCondensationEdge(comp[z], cw, 1);
+                }
+            }
+        }
+    }
+
+    private void detach(int c, IntCountMap[] adjacency, IntCountMap[] mirror) {
+        IntCountMap edges = adjacency[c];
+        if (edges == null) {
+            return;
+        }
+        for (int slot = 0; slot < edges.capacity(); slot++) {
+            int d = edges.keyAt(slot);
+            if (d >= 0) {
+                mirror[d].remove(c);
+            }
+        }
+        adjacency[c] = null;
+    }
+
+    /**
+     * Grow c's position into a run of count consecutive positions by pulling
+     * in the nearest holes. Components passed over shift by one and keep
+     * their relative order. Returns the ids in the run, first position first.
+     */
+    private int[] claimBlock(int c, int count) {
+        int lo = ord[c];
+        int hi = ord[c];
+        while (hi - lo + 1 < count) {
+            int left = lo - 1;
+            int right = hi + 1;
+            while (true) {
+                if (right < n && !alive[idAt[right]]) {
+                    int hole = idAt[right];
+                    for (int p = right; p > hi + 1; p--) {
+                        place(idAt[p - 1], p);
+                    }
+                    place(hole, ++hi);
+                    break;
+                }
+                if (left >= 0 && !alive[idAt[left]]) {
+                    int hole = idAt[left];
+                    for (int p = left; p < lo - 1; p++) {
+                        place(idAt[p + 1], p);
+                    }
+                    place(hole, --lo);
+                    break;
+                }
+                if (left < 0 && right >= n) {
+                    throw new IllegalStateException("No free component id for split");
+                }
+                left--;
+                right++;
+            }
+        }
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = idAt[lo + i];
+        }
+        return ids;
+    }
+
+    /**
+     * Iterative Tarjan restricted to the nodes of component c. Writes the
+     * part index of every node and returns the number of parts.
+     */
+    private int localTarjan(int[] nodes, int c, int[] part) {
+        int size = nodes.length;
+        int[] disc = new int[size];
+        int[] low = new int[size];
+        int[] cursor = new int[size];
+        int[] callStack = new int[size];
+        int[] sccStack = new int[size];
+        boolean[] onStack = new boolean[size];
+        Arrays.fill(disc, -1);
+        int time = 0;
+        int parts = 0;
+        long visits = 0;
+        long edgeTraversals = 0;
+
+        for (int s = 0; s < size; s++) {
+            if (disc[s] != -1) {
+                continue;
+            }
+            int callTop = 0;
+            int sccTop = 0;
+            disc[s] = low[s] = time++;
+            sccStack[sccTop++] = s;
+            onStack[s] = true;
+            callStack[callTop++] = s;
+            visits++;
+
+            while (callTop > 0) {
+                int u = callStack[callTop - 1];
+                int w = nodes[u];
+                if (cursor[u] < outCount[w]) {
+                    int x = out[w][cursor[u]++];
+                    edgeTraversals++;
+                    if (comp[x] != c) {
+                        continue;
+                    }
+                    int v = localIndex[x];
+                    if (disc[v] == -1) {
+                        disc[v] = low[v] = time++;
+                        sccStack[sccTop++] = v;
+                        onStack[v] = true;
+                        callStack[callTop++] = v;
+                        visits++;
+                    } else if (onStack[v]) {
+                        low[u] = Math.min(low[u], disc[v]);
+                    }
+                    continue;
+                }
+
+                callTop--;
+                if (low[u] == disc[u]) {
+                    int v;
+                    do {
+                        v = sccStack[--sccTop];
+                        onStack[v] = false;
+                        part[v] = parts;
+                    } while (v != u);
+                    parts++;
+                }
+                if (callTop > 0) {
+                    int parent = callStack[callTop - 1];
+                    low[parent] = Math.min(low[parent], low[u]);
+                }
+            }
+        }
+        metrics.addVisits(visits);
+        metrics.addEdgeTraversals(edgeTraversals);
+        return parts;
+    }
+
+    private int addCondensationEdge(int from, int to, int delta) {
+        int count = map(condOut, from).add(to, delta);
+        map(condIn, to).add(from, delta);
+        return count;
+    }
+
+    private static IntCountMap map(IntCountMap[] maps, int c) {
+        if (maps[c] == null) {
+            maps[c] = new IntCountMap();
+        }
+        return maps[c];
+    }
+
+    private void addMember(int c, int v) {
+        if (memberCount[c] == members[c].length) {
+            members[c] = Arrays.copyOf(members[c], memberCount[c] * 2);
+        }
+        members[c][memberCount[c]++] = v;
+    }
+
+    private void place(int id, int position) {
+        ord[id] = position;
+        idAt[position] = id;
+    }
+
+    private void link(int u, int v) {
+        if (out[u] == null) {
+            out[u] = new int[2];
+        } else if (outCount[u] == out[u].length) {
+            out[u] = Arrays.copyOf(out[u], outCount[u] * 2);
+        }
+        out[u][outCount[u]++] = v;
+
+        if (in[v] == null) {
+            in[v] = new int[2];
+        } else if (inCount[v] == in[v].length) {
+            in[v] = Arrays.copyOf(in[v], inCount[v] * 2);
+        }
+        in[v][inCount[v]++] = u;
+    }
+
+    private boolean unlink(int u, int v) {
+        int i = indexOf(out[u], outCount[u], v);
+        if (i < 0) {
+            return false;
+        }
+        out[u][i] = out[u][--outCount[u]];
+        int j = indexOf(in[v], inCount[v], u);
+        in[v][j] = in[v][--inCount[v]];
+        return true;
+    }
+
+    private static int indexOf(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int getN() { return n; }
+    public int componentOf(int v) { return comp[v]; }
+    public int componentCount() { return componentCount; }
+    public boolean isComponent(int c) { return alive[c]; }
+    public int componentSize(int c) { return memberCount[c]; }
+
+    /** Live node-to-component array; updated in place by every change. */
+    public int[] getMapping() { return comp; }
+
+    public List<Integer> members(int c) {
+        List<Integer> list = new ArrayList<>(memberCount[c]);
+        for (int i = 0; i < memberCount[c]; i++) {
+            list.add(members[c][i]);
+        }
+        return list;
+    }
+
+    /** Number of original edges from component a to component b. */
+    public int condensationEdges(int a, int b) {
+        return condOut[a] == null ? 0 : condOut[a].get(b);
+    }
+
+    public List<Integer> successors(int c) {
+        List<Integer> list = new ArrayList<>();
+        if (condOut[c] != null) {
+            for (int d : condOut[c].keys()) {
+                list.add(d);
+            }
+        }
+        return list;
+    }
+
+    /** Live component ids in topological order. */
+    public int[] getComponentOrder() {
+        int[] order = new int[componentCount];
+        int k = 0;
+        for (int p = 0; p < n; p++) {
+            if (alive[idAt[p]]) {
+                order[k++] = idAt[p];
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Compact copy of the current decomposition with components numbered
+     * 0..count-1 in topological order, e.g. to feed CondensationGraph.
+     */
+    public Components snapshot() {
+        int[] order = getComponentOrder();
+        int[] compact = new int[n];
+        int[] offsets = new int[order.length + 1];
+        int[] nodes = new int[n];
+        int pos = 0;
+        for (int k = 0; k < order.length; k++) {
+            int c = order[k];
+            for (int i = 0; i < memberCount[c]; i++) {
+                int v = members[c][i];
+                compact[v] = k;
+                nodes[pos++] = v;
+            }
+            offsets[k + 1] = pos;
+        }
+        return new Components(compact, offsets, nodes);
+    }
+}
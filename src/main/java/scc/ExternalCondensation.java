@@ -0,0 +1,225 @@
+package scc;
+
+import graph.*;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Condensation written straight to a binary graph file, for graphs whose
+ * edges do not fit in memory. The same graph as CondensationGraph, edge for
+ * edge, built with external distribution:
+ *
+ *   1. one sequential pass counts cross edges per source component and cuts
+ *      the components into ranges of at most partitionEdges cross edges;
+ *   2. a second pass appends every cross edge to the chunk file of its range;
+ *   3. the file writer walks the components in order, loading one chunk at a
+ *      time and deduplicating its edges exactly as CondensationGraph does.
+ *
+ * Memory is O(components) plus one chunk.
+ */
+public class ExternalCondensation {
+    private Graph graph;
+    private Components components;
+    private CondensationGraph.WeightPolicy weightPolicy;
+    private int partitionEdges;
+
+    // First component of each chunk, plus a sentinel
+    private int[] partitionStart;
+    private Path[] partitionFiles;
+
+    // Duplicate removal as in CondensationGraph: seenBy[t] == stamp means the
+    // current component's edge to t is already kept at slot[t]. Chunks are
+    // loaded once per writer pass, so stamps count loads, not component ids.
+    private int[] seenBy;
+    private int[] slot;
+    private int stamp;
+
+    // Chunk currently loaded: its edges grouped and deduplicated per component
+    private int loaded = -1;
+    private int[] loadedOffsets;
+    private int[] loadedTargets;
+    private int[] loadedWeights;
+
+    public ExternalCondensation(Graph graph, Components components,
+                                CondensationGraph.WeightPolicy weightPolicy, int partitionEdges) {
+        this.graph = graph;
+        this.components = components;
+        this.weightPolicy = weightPolicy;
+        this.partitionEdges = Math.max(1, partitionEdges);
+    }
+
+    /**
+     * Write the condensation to outputFile, using workDir for the chunks.
+     * The chunks are deleted afterwards.
+     */
+    public void write(String outputFile, Path workDir) throws IOException {
+        int n = graph.getN();
+        int k = components.count();
+        int[] comp = components.getComponentOf();
+
+        // Pass 1: cross edges per source component
+        int[] crossCount = new int[k];
+        for (int u = 0; u < n; u++) {
+            int compU = comp[u];
+            for (int i = graph.edgeStart(u), end = graph.edgeEnd(u); i < end; i++) {
+                if (comp[graph.target(i)] != compU) {
+                    crossCount[compU]++;
+                }
+            }
+        }
+
+        IntBag starts = new IntBag(16);
+        starts.add(0);
+        long inPartition = 0;
+        for (int c = 0; c < k; c++) {
+            if (inPartition > 0 && inPartition + crossCount[c] > partitionEdges) {
+                starts.add(c);
+                inPartition = 0;
+            }
+            inPartition += crossCount[c];
+        }
+        starts.add(k);
+        partitionStart = starts.toArray();
+        int partitions = partitionStart.length - 1;
+
+        // Pass 2: distribute cross edges into the chunk files
+        Files.createDirectories(workDir);
+        partitionFiles = new Path[partitions];
+        DataOutputStream[] outs = new DataOutputStream[partitions];
+        try {
+            for (int p = 0; p < partitions; p++) {
+                partitionFiles[p] = Files.createTempFile(workDir, "condensation-", ".chunk");
+                outs[p] = new DataOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(partitionFiles[p]), 1 << 13));
+            }
+            for (int u = 0; u < n; u++) {
+                int compU = comp[u];
+                for (int i = graph.edgeStart(u), end = graph.edgeEnd(u); i < end; i++) {
+                    int compV = comp[graph.target(i)];
+                    if (compV != compU) {
+                        int p = partitionOf(compU);
+                        outs[p].writeInt(compU);
+                        outs[p].writeInt(compV);
+                        outs[p].writeInt(graph.weight(i));
+                    }
+                }
+            }
+        } finally {
+            for (DataOutputStream out : outs) {
+                if (out != null) {
+                    out.close();
+                }
+            }
+        }
+
+        // Pass 3: write the file component by component
+        seenBy = new int[k];
+        slot = new int[k];
+        stamp = 0;
+        try {
+            BinaryGraphFormat.write(outputFile, k, true, 0, null, (c, targets, weights) -> {
+                int part = partitionOf(c);
+                if (part != loaded) {
+                    load(part);
+                }
+                int base = c - partitionStart[part];
+                for (int i = loadedOffsets[base]; i < loadedOffsets[base + 1]; i++) {
+                    targets.add(loadedTargets[i]);
+                    weights.add(loadedWeights[i]);
+                }
+            });
+        } finally {
+            loaded = -1;
+            loadedOffsets = null;
+            loadedTargets = null;
+            loadedWeights = null;
+            seenBy = null;
+            slot = null;
+            for (Path file : partitionFiles) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private int partitionOf(int c) {
+        int p = Arrays.binarySearch(partitionStart, 0, partitionStart.length - 1, c);
+        return p >= 0 ? p : -p - 2;
+    }
+
+    private void load(int part) {
+        int first = partitionStart[part];
+        int count = partitionStart[part + 1] - first;
+        Path file = partitionFiles[part];
+
+        int edges;
+        int[] from;
+        int[] to;
+        int[] weight;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            edges = (int) (Files.size(file) / 12);
+            from = new int[edges];
+            to = new int[edges];
+            weight = new int[edges];
+            for (int i = 0; i < edges; i++) {
+                from[i] = in.readInt() - first;
+                to[i] = in.readInt();
+                weight[i] = in.readInt();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // Stable counting sort by source component, then the same duplicate
+        // removal as CondensationGraph
+        int[] offsets = new int[count + 1];
+        for (int i = 0; i < edges; i++) {
+            offsets[from[i] + 1]++;
+        }
+        for (int c = 0; c < count; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+        int[] targets = new int[edges];
+        int[] weights = new int[edges];
+        int[] cursor = Arrays.copyOf(offsets, count);
+        for (int i = 0; i < edges; i++) {
+            int pos = cursor[from[i]]++;
+            targets[pos] = to[i];
+            weights[pos] = weight[i];
+        }
+        from = null;
+        to = null;
+        weight = null;
+
+        int write = 0;
+        int start = 0;
+        for (int c = 0; c < count; c++) {
+            int end = offsets[c + 1];
+            stamp++;
+            offsets[c] = write;
+            for (int i = start; i < end; i++) {
+                int t = targets[i];
+                int w = weights[i];
+                if (seenBy[t] != stamp) {
+                    seenBy[t] = stamp;
+                    slot[t] = write;
+                    targets[write] = t;
+                    weights[write] = w;
+                    write++;
+                } else if (weightPolicy == CondensationGraph.WeightPolicy.MIN) {
+                    weights[slot[t]] = Math.min(weights[slot[t]], w);
+                } else if (weightPolicy == CondensationGraph.WeightPolicy.MAX) {
+                    weights[slot[t]] = Math.max(weights[slot[t]], w);
+                }
+            }
+            start = end;
+        }
+        offsets[count] = write;
+
+        loaded = part;
+        loadedOffsets = offsets;
+        loadedTargets = targets;
+        loadedWeights = weights;
+    }
+}
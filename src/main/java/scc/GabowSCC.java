@@ -0,0 +1,114 @@
+package scc;
+
+import graph.*;
+import java.util.*;
+
+/**
+ * Gabow's path-based SCC algorithm. Instead of low-links it keeps a second
+ * stack of the preorder numbers where components on the current path begin,
+ * and collapses it when an edge closes a cycle. One DFS, iterative, and
+ * components numbered sinks first like Tarjan.
+ */
+public class GabowSCC implements SccAlgorithm {
+    private Graph graph;
+    private Metrics metrics;
+    private Components components;
+
+    public GabowSCC(Graph graph, Metrics metrics) {
+        this.graph = graph;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String getName() { return "Gabow"; }
+
+    @Override
+    public Components findComponents() {
+        metrics.startTimer();
+
+        int n = graph.getN();
+        int[] pre = new int[n];
+        int[] cursor = new int[n];
+        int[] callStack = new int[n];
+        int[] pathStack = new int[n];
+        int[] boundaries = new int[n];
+
+        int[] componentOf = new int[n];
+        int[] offsets = new int[n + 1];
+        int[] nodes = new int[n];
+        int componentCount = 0;
+        int written = 0;
+
+        Arrays.fill(pre, -1);
+        Arrays.fill(componentOf, -1);
+        int counter = 0;
+        long visits = 0;
+        long edgeTraversals = 0;
+
+        for (int s = 0; s < n; s++) {
+            if (pre[s] != -1) {
+                continue;
+            }
+
+            int callTop = 0;
+            int pathTop = 0;
+            int boundaryTop = 0;
+            pre[s] = counter++;
+            cursor[s] = graph.edgeStart(s);
+            callStack[callTop++] = s;
+            pathStack[pathTop++] = s;
+            boundaries[boundaryTop++] = pre[s];
+            visits++;
+
+            while (callTop > 0) {
+                int u = callStack[callTop - 1];
+
+                if (cursor[u] < graph.edgeEnd(u)) {
+                    int v = graph.target(cursor[u]++);
+                    edgeTraversals++;
+
+                    if (pre[v] == -1) {
+                        pre[v] = counter++;
+                        cursor[v] = graph.edgeStart(v);
+                        callStack[callTop++] = v;
+                        pathStack[pathTop++] = v;
+                        boundaries[boundaryTop++] = pre[v];
+                        visits++;
+                    } else if (componentOf[v] == -1) {
+                        // v is still on the path stack: merge everything after it
+                        while (boundaries[boundaryTop - 1] > pre[v]) {
+                            boundaryTop--;
+                        }
+                    }
+                    continue;
+                }
+
+                callTop--;
+
+                if (boundaries[boundaryTop - 1] == pre[u]) {
+                    boundaryTop--;
+                    int v;
+                    do {
+                        v = pathStack[--pathTop];
+                        componentOf[v] = componentCount;
+                        nodes[written++] = v;
+                    } while (v != u);
+                    offsets[++componentCount] = written;
+                }
+            }
+        }
+
+        components = new Components(componentOf, Arrays.copyOf(offsets, componentCount + 1), nodes);
+
+        metrics.addVisits(visits);
+        metrics.addEdgeTraversals(edgeTraversals);
+        metrics.stopTimer();
+        return components;
+    }
+
+    @Override
+    public Components getComponents() { return components; }
+
+    @Override
+    public Metrics getMetrics() { return metrics; }
+}
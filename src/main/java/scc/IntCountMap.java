@@ -0,0 +1,137 @@
+package scc;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from non-negative int keys to positive counts, used
+ * for edge multiplicities between components. Entries whose count drops to
+ * zero are removed with backward-shift deletion, so there are no tombstones.
+ */
+final class IntCountMap {
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private int[] counts;
+    private int size;
+
+    IntCountMap() {
+        keys = new int[4];
+        counts = new int[4];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    int size() { return size; }
+    int capacity() { return keys.length; }
+
+    /** Key stored in slot i, or -1 if the slot is empty. */
+    int keyAt(int slot) { return keys[slot]; }
+    int countAt(int slot) { return counts[slot]; }
+
+    int get(int key) {
+        int slot = find(key);
+        return slot < 0 ? 0 : counts[slot];
+    }
+
+    /**
+     * Add delta to the count of key and return the new count. A count that
+     * reaches zero removes the key.
+     */
+    int add(int key, int delta) {
+        int slot = find(key);
+        if (slot >= 0) {
+            int count = counts[slot] + delta;
+            if (count <= 0) {
+                removeSlot(slot);
+                return 0;
+            }
+            counts[slot] = count;
+            return count;
+        }
+        if (delta <= 0) {
+            return 0;
+        }
+        if ((size + 1) * 4 > keys.length * 3) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        counts[i] = delta;
+        size++;
+        return delta;
+    }
+
+    /** Remove key and return the count it had. */
+    int remove(int key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return 0;
+        }
+        int count = counts[slot];
+        removeSlot(slot);
+        return count;
+    }
+
+    /** Copy of the stored keys, safe to iterate while the map changes. */
+    int[] keys() {
+        int[] result = new int[size];
+        int k = 0;
+        for (int key : keys) {
+            if (key != EMPTY) {
+                result[k++] = key;
+            }
+        }
+        return result;
+    }
+
+    private int find(int key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void removeSlot(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        int i = (slot + 1) & mask;
+        while (keys[i] != EMPTY) {
+            int home = hash(keys[i]) & mask;
+            // Move the entry back if the hole lies on its probe path
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                counts[hole] = counts[i];
+                hole = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        size--;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                add(oldKeys[i], oldCounts[i]);
+            }
+        }
+    }
+
+    private static int hash(int key) {
+        return key * 0x9E3779B9 >>> 7 ^ key;
+    }
+}
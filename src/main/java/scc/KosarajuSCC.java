@@ -0,0 +1,115 @@
+package scc;
+
+import graph.*;
+import java.util.*;
+
+/**
+ * Kosaraju-Sharir: one DFS over the graph for finishing order, then DFS over
+ * the reverse graph in decreasing finishing time, each tree being one SCC.
+ * Both passes are iterative and the reverse CSR is the graph's cached one.
+ * Components come out in topological order of the condensation, sources
+ * first (Tarjan numbers them sinks first).
+ */
+public class KosarajuSCC implements SccAlgorithm {
+    private Graph graph;
+    private Metrics metrics;
+    private Components components;
+
+    public KosarajuSCC(Graph graph, Metrics metrics) {
+        this.graph = graph;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String getName() { return "Kosaraju"; }
+
+    @Override
+    public Components findComponents() {
+        metrics.startTimer();
+
+        int n = graph.getN();
+        Graph reverse = graph.getReverse();
+        int[] cursor = new int[n];
+        int[] stack = new int[n];
+        int[] finished = new int[n];
+        boolean[] seen = new boolean[n];
+        int finishCount = 0;
+        long visits = 0;
+        long edgeTraversals = 0;
+
+        // Pass 1: finishing order on the forward graph
+        for (int s = 0; s < n; s++) {
+            if (seen[s]) {
+                continue;
+            }
+            int top = 0;
+            seen[s] = true;
+            cursor[s] = graph.edgeStart(s);
+            stack[top++] = s;
+            visits++;
+
+            while (top > 0) {
+                int u = stack[top - 1];
+                if (cursor[u] < graph.edgeEnd(u)) {
+                    int v = graph.target(cursor[u]++);
+                    edgeTraversals++;
+                    if (!seen[v]) {
+                        seen[v] = true;
+                        cursor[v] = graph.edgeStart(v);
+                        stack[top++] = v;
+                        visits++;
+                    }
+                } else {
+                    finished[finishCount++] = u;
+                    top--;
+                }
+            }
+        }
+
+        // Pass 2: trees of the reverse graph, latest finisher first
+        int[] componentOf = new int[n];
+        int[] offsets = new int[n + 1];
+        int[] nodes = new int[n];
+        Arrays.fill(componentOf, -1);
+        int componentCount = 0;
+        int written = 0;
+
+        for (int i = n - 1; i >= 0; i--) {
+            int s = finished[i];
+            if (componentOf[s] != -1) {
+                continue;
+            }
+            int top = 0;
+            componentOf[s] = componentCount;
+            stack[top++] = s;
+
+            while (top > 0) {
+                int u = stack[--top];
+                nodes[written++] = u;
+                visits++;
+                for (int e = reverse.edgeStart(u), end = reverse.edgeEnd(u); e < end; e++) {
+                    int v = reverse.target(e);
+                    edgeTraversals++;
+                    if (componentOf[v] == -1) {
+                        componentOf[v] = componentCount;
+                        stack[top++] = v;
+                    }
+                }
+            }
+            offsets[++componentCount] = written;
+        }
+
+        components = new Components(componentOf, Arrays.copyOf(offsets, componentCount + 1), nodes);
+
+        metrics.addVisits(visits);
+        metrics.addEdgeTraversals(edgeTraversals);
+        metrics.stopTimer();
+        return components;
+    }
+
+    @Override
+    public Components getComponents() { return components; }
+
+    @Override
+    public Metrics getMetrics() { return metrics; }
+}
@@ -0,0 +1,395 @@
+package scc;
+
+import graph.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel SCC decomposition on a ForkJoinPool. Nodes without live in- or
+ * out-edges are trimmed as singleton components in parallel rounds, then the
+ * remainder is split with forward-backward reachability from a pivot. Sets
+ * that become small are finished with a sequential Tarjan pass.
+ */
+public class ParallelSCC implements SccAlgorithm {
+    private static final int SEQUENTIAL_THRESHOLD = 4096;
+    private static final int FRONTIER_CHUNK = 1024;
+    // Splits that peel off little at a time (long chains of small SCCs) would
+    // otherwise nest one task per SCC and overflow the worker stack
+    private static final int MAX_DEPTH = 64;
+    private static final int REMOVED = -1;
+    private static final int NONE = -2;
+
+    private Graph graph;
+    private Graph reverse;
+    private Metrics metrics;
+    private ForkJoinPool pool;
+
+    // Label of the set each live node belongs to; REMOVED once it has a component
+    private AtomicIntegerArray color;
+    private int[] componentOf;
+    private int[] localIndex;
+    private AtomicInteger nextComponent;
+    private AtomicInteger nextColor;
+    private LongAdder visits;
+    private LongAdder edgeTraversals;
+    private Components components;
+
+    public ParallelSCC(Graph graph, Metrics metrics) {
+        this(graph, metrics, ForkJoinPool.commonPool());
+    }
+
+    public ParallelSCC(Graph graph, Metrics metrics, ForkJoinPool pool) {
+        this.graph = graph;
+        this.metrics = metrics;
+        this.pool = pool;
+    }
+
+    @Override
+    public List<List<Integer>> findSCCs() {
+        return findComponents().toLists();
+    }
+
+    @Override
+    public String getName() { return "ParallelFB"; }
+
+    @Override
+    public Components findComponents() {
+        if (graph.isDiskBacked()) {
+            throw new IllegalArgumentException(
+                    "ParallelSCC cannot read a disk-backed graph from several threads");
+        }
+        metrics.startTimer();
+
+        int n = graph.getN();
+        reverse = graph.getReverse();
+        color = new AtomicIntegerArray(n);
+        componentOf = new int[n];
+        localIndex = new int[n];
+        nextComponent = new AtomicInteger();
+        nextColor = new AtomicInteger();
+        visits = new LongAdder();
+        edgeTraversals = new LongAdder();
+
+        pool.invoke(ForkJoinTask.adapt(this::run));
+
+        components = buildComponents(n);
+
+        metrics.addVisits(visits.sum());
+        metrics.addEdgeTraversals(edgeTraversals.sum());
+        metrics.stopTimer();
+        return components;
+    }
+
+    private void run() {
+        trim();
+        int[] live = IntStream.range(0, graph.getN()).parallel()
+                .filter(v -> color.get(v) == 0)
+                .toArray();
+        new FwBwTask(live, 0, 0).invoke();
+    }
+
+    /**
+     * Repeatedly remove nodes whose live in- or out-degree is zero; each of
+     * them is its own component.
+     */
+    private void trim() {
+        int n = graph.getN();
+        AtomicIntegerArray inDegree = new AtomicIntegerArray(n);
+        AtomicIntegerArray outDegree = new AtomicIntegerArray(n);
+
+        IntStream.range(0, n).parallel().forEach(v -> {
+            inDegree.set(v, reverse.degree(v));
+            outDegree.set(v, graph.degree(v));
+        });
+
+        int[] frontier = IntStream.range(0, n).parallel()
+                .filter(v -> (inDegree.get(v) == 0 || outDegree.get(v) == 0)
+                        && color.compareAndSet(v, 0, REMOVED))
+                .toArray();
+
+        while (frontier.length > 0) {
+            frontier = expand(frontier, (u, next) -> {
+                componentOf[u] = nextComponent.getAndIncrement();
+                visits.increment();
+                long scanned = 0;
+
+                for (int i = graph.edgeStart(u), end = graph.edgeEnd(u); i < end; i++) {
+                    int v = graph.target(i);
+                    scanned++;
+                    if (inDegree.decrementAndGet(v) == 0 && color.compareAndSet(v, 0, REMOVED)) {
+                        next.add(v);
+                    }
+                }
+                for (int i = reverse.edgeStart(u), end = reverse.edgeEnd(u); i < end; i++) {
+                    int w = reverse.target(i);
+                    scanned++;
+                    if (outDegree.decrementAndGet(w) == 0 && color.compareAndSet(w, 0, REMOVED)) {
+                        next.add(w);
+                    }
+                }
+                return scanned;
+            });
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private class FwBwTask extends RecursiveAction {
+        private final int[] nodes;
+        private final int label;
+        private final int depth;
+
+        FwBwTask(int[] nodes, int label, int depth) {
+            this.nodes = nodes;
+            this.label = label;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (nodes.length == 0) {
+                return;
+            }
+            if (nodes.length <= SEQUENTIAL_THRESHOLD || depth >= MAX_DEPTH) {
+                tarjan(nodes, label);
+                return;
+            }
+
+            int pivot = pickPivot(nodes);
+            int fw = nextColor.incrementAndGet();
+            int bw = nextColor.incrementAndGet();
+            int scc = nextColor.incrementAndGet();
+
+            color.set(pivot, fw);
+            reach(pivot, graph, label, fw, NONE, NONE);
+            color.set(pivot, scc);
+            reach(pivot, reverse, fw, scc, label, bw);
+
+            int component = nextComponent.getAndIncrement();
+            int[] forwardOnly = IntStream.of(nodes).parallel().filter(v -> color.get(v) == fw).toArray();
+            int[] backwardOnly = IntStream.of(nodes).parallel().filter(v -> color.get(v) == bw).toArray();
+            int[] rest = IntStream.of(nodes).parallel().filter(v -> color.get(v) == label).toArray();
+            int[] members = IntStream.of(nodes).parallel().filter(v -> color.get(v) == scc).toArray();
+            IntStream.of(members).parallel().forEach(v -> {
+                componentOf[v] = component;
+                color.set(v, REMOVED);
+            });
+            visits.add(members.length);
+
+            invokeAll(child(forwardOnly, fw), child(backwardOnly, bw), child(rest, label));
+        }
+
+        // A part that keeps almost the whole set means the pivot's SCC was
+        // small; splitting it further would rescan the set once per SCC
+        private FwBwTask child(int[] part, int partLabel) {
+            boolean littleProgress = part.length * 8L > nodes.length * 7L;
+            return new FwBwTask(part, partLabel, littleProgress ? MAX_DEPTH : depth + 1);
+        }
+    }
+
+    // A node with many in- and out-edges is the likeliest member of a giant SCC
+    private int pickPivot(int[] nodes) {
+        return IntStream.of(nodes).parallel()
+                .reduce((a, b) -> pivotScore(a) >= pivotScore(b) ? a : b)
+                .orElse(nodes[0]);
+    }
+
+    private long pivotScore(int v) {
+        return (long) (graph.degree(v) + 1) * (reverse.degree(v) + 1);
+    }
+
+    /**
+     * Level-synchronous BFS from start over g. A neighbor is claimed by
+     * moving its color fromA -> toA, or otherwise fromB -> toB.
+     */
+    private void reach(int start, Graph g, int fromA, int toA, int fromB, int toB) {
+        int[] frontier = {start};
+        while (frontier.length > 0) {
+            frontier = expand(frontier, (u, next) -> {
+                long scanned = 0;
+                for (int i = g.edgeStart(u), end = g.edgeEnd(u); i < end; i++) {
+                    int v = g.target(i);
+                    scanned++;
+                    // Most targets are already claimed; a plain read skips the CAS
+                    int c = color.get(v);
+                    if ((c == fromA && color.compareAndSet(v, fromA, toA))
+                            || (c == fromB && fromB != NONE && color.compareAndSet(v, fromB, toB))) {
+                        next.add(v);
+                    }
+                }
+                return scanned;
+            });
+        }
+    }
+
+    private interface Expander {
+        long expand(int u, IntBag next);
+    }
+
+    private int[] expand(int[] frontier, Expander expander) {
+        int chunks = (frontier.length + FRONTIER_CHUNK - 1) / FRONTIER_CHUNK;
+        IntBag[] parts = new IntBag[chunks];
+        if (chunks <= 1) {
+            new ExpandTask(frontier, 0, chunks, expander, parts).compute();
+        } else {
+            new ExpandTask(frontier, 0, chunks, expander, parts).invoke();
+        }
+
+        // Every chunk's part is copied once, instead of once per merge level
+        int size = 0;
+        for (IntBag part : parts) {
+            size += part.size();
+        }
+        int[] next = new int[size];
+        int at = 0;
+        for (IntBag part : parts) {
+            part.copyTo(next, at);
+            at += part.size();
+        }
+        return next;
+    }
+
+    /** Expands chunks [from, to) of the frontier, each into its own part. */
+    @SuppressWarnings("serial")
+    private class ExpandTask extends RecursiveAction {
+        private final int[] frontier;
+        private final int from;
+        private final int to;
+        private final Expander expander;
+        private final IntBag[] parts;
+
+        ExpandTask(int[] frontier, int from, int to, Expander expander, IntBag[] parts) {
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+            this.expander = expander;
+            this.parts = parts;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                for (int chunk = from; chunk < to; chunk++) {
+                    int start = chunk * FRONTIER_CHUNK;
+                    int end = Math.min(frontier.length, start + FRONTIER_CHUNK);
+                    IntBag next = new IntBag(end - start);
+                    long scanned = 0;
+                    for (int i = start; i < end; i++) {
+                        scanned += expander.expand(frontier[i], next);
+                    }
+                    edgeTraversals.add(scanned);
+                    parts[chunk] = next;
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ExpandTask(frontier, from, mid, expander, parts),
+                    new ExpandTask(frontier, mid, to, expander, parts));
+        }
+    }
+
+    /**
+     * Sequential iterative Tarjan over the live nodes carrying the given
+     * label. Sets are disjoint, so localIndex can be shared by all tasks.
+     */
+    private void tarjan(int[] nodes, int label) {
+        int size = nodes.length;
+        for (int i = 0; i < size; i++) {
+            localIndex[nodes[i]] = i;
+        }
+
+        int[] disc = new int[size];
+        int[] low = new int[size];
+        int[] cursor = new int[size];
+        int[] callStack = new int[size];
+        int[] sccStack = new int[size];
+        boolean[] onStack = new boolean[size];
+        Arrays.fill(disc, -1);
+        int time = 0;
+        long scanned = 0;
+
+        for (int s = 0; s < size; s++) {
+            if (disc[s] != -1) {
+                continue;
+            }
+
+            int callTop = 0;
+            int sccTop = 0;
+            disc[s] = low[s] = time++;
+            cursor[s] = graph.edgeStart(nodes[s]);
+            sccStack[sccTop++] = s;
+            onStack[s] = true;
+            callStack[callTop++] = s;
+
+            while (callTop > 0) {
+                int u = callStack[callTop - 1];
+
+                if (cursor[u] < graph.edgeEnd(nodes[u])) {
+                    int w = graph.target(cursor[u]++);
+                    scanned++;
+                    if (color.get(w) != label) {
+                        continue;
+                    }
+                    int v = localIndex[w];
+                    if (disc[v] == -1) {
+                        disc[v] = low[v] = time++;
+                        cursor[v] = graph.edgeStart(w);
+                        sccStack[sccTop++] = v;
+                        onStack[v] = true;
+                        callStack[callTop++] = v;
+                    } else if (onStack[v]) {
+                        low[u] = Math.min(low[u], disc[v]);
+                    }
+                    continue;
+                }
+
+                callTop--;
+
+                if (low[u] == disc[u]) {
+                    int component = nextComponent.getAndIncrement();
+                    int v;
+                    do {
+                        v = sccStack[--sccTop];
+                        onStack[v] = false;
+                        componentOf[nodes[v]] = component;
+                    } while (v != u);
+                }
+
+                if (callTop > 0) {
+                    int parent = callStack[callTop - 1];
+                    low[parent] = Math.min(low[parent], low[u]);
+                }
+            }
+        }
+
+        for (int v : nodes) {
+            color.set(v, REMOVED);
+        }
+        visits.add(size);
+        edgeTraversals.add(scanned);
+    }
+
+    private Components buildComponents(int n) {
+        int count = nextComponent.get();
+        int[] offsets = new int[count + 1];
+        for (int v = 0; v < n; v++) {
+            offsets[componentOf[v] + 1]++;
+        }
+        for (int c = 0; c < count; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+        int[] nodes = new int[n];
+        int[] cursor = Arrays.copyOf(offsets, count);
+        for (int v = 0; v < n; v++) {
+            nodes[cursor[componentOf[v]]++] = v;
+        }
+        return new Components(componentOf, offsets, nodes);
+    }
+
+    @Override
+    public Components getComponents() { return components; }
+
+    @Override
+    public Metrics getMetrics() { return metrics; }
+}
@@ -0,0 +1,262 @@
+package scc;
+
+import graph.*;
+import topo.TopologicalSort;
+import java.util.*;
+
+/**
+ * Answers "can a reach b?" for nodes of the original graph through its
+ * condensation. Nodes in the same SCC reach each other; otherwise the
+ * question is asked of their components:
+ *
+ *   - small DAGs (at most closureLimit components) keep the full transitive
+ *     closure as one bitset row per component, so a query is a single bit test;
+ *   - larger DAGs get GRAIL labels: for each of several random post-order DFS
+ *     traversals, component c is labelled [lowest post-order rank below c,
+ *     rank of c]. If a reaches b, b's interval lies inside a's in every
+ *     traversal, so a missing containment is an exact "no", as is a level
+ *     that does not increase. A b inside a's DFS subtree is an exact "yes".
+ *     Queries left open fall back to a DFS that only enters components whose
+ *     labels still contain b's.
+ *
+ * Labels take O(k + e) time and 4 * (3 * traversals + 3) bytes per component;
+ * the closure takes O(k * e / 64) time and k^2 / 8 bytes. Queries reuse a
+ * stamp array, so an index is not thread safe.
+ */
+public class ReachabilityIndex {
+    public static final int DEFAULT_CLOSURE_LIMIT = 4096;
+    public static final int DEFAULT_TRAVERSALS = 5;
+
+    private Graph dag;
+    private int[] componentOf;
+    private int k;
+
+    // Transitive closure: words longs per component, bit t of row c set if c reaches t
+    private long[] closure;
+    private int words;
+
+    // GRAIL: labels[(c * traversals + i) * 3] = low, [+ 1] = first rank of c's
+    // DFS subtree, [+ 2] = rank of c in traversal i
+    private int traversals;
+    private int[] labels;
+    private int[] level;
+    private int[] seenBy;
+    private int[] stack;
+    private int stamp;
+    private long fallbacks;
+
+    public ReachabilityIndex(CondensationGraph condensation) {
+        this(condensation, DEFAULT_CLOSURE_LIMIT, DEFAULT_TRAVERSALS, 1);
+    }
+
+    public ReachabilityIndex(CondensationGraph condensation, int closureLimit, int traversals, long seed) {
+        this.dag = condensation.getCondensation();
+        this.componentOf = condensation.getMapping();
+        this.k = dag.getN();
+
+        int[] order = new TopologicalSort(dag, new MetricsImpl()).sortOrder();
+        if (order == null) {
+            throw new IllegalArgumentException("Graph contains a cycle");
+        }
+        if (k <= closureLimit) {
+            buildClosure(order);
+        } else {
+            this.traversals = Math.max(1, traversals);
+            buildLevels(order);
+            buildLabels(new Random(seed));
+            seenBy = new int[k];
+            stack = new int[k];
+        }
+    }
+
+    /** True if there is a path from a to b in the original graph (a reaches itself). */
+    public boolean reaches(int a, int b) {
+        return componentReaches(componentOf[a], componentOf[b]);
+    }
+
+    /** True if component cu reaches component cv in the condensation. */
+    public boolean componentReaches(int cu, int cv) {
+        if (cu == cv) {
+            return true;
+        }
+        if (closure != null) {
+            return (closure[cu * words + (cv >>> 6)] & (1L << cv)) != 0;
+        }
+        if (!mayReach(cu, cv)) {
+            return false;
+        }
+        return mustReach(cu, cv) || search(cu, cv);
+    }
+
+    public boolean isClosure() { return closure != null; }
+
+    /** Queries that needed the pruned DFS so far. */
+    public long getFallbacks() { return fallbacks; }
+
+    /** Heap used by the index arrays, excluding the condensation itself. */
+    public long getSizeBytes() {
+        if (closure != null) {
+            return 8L * closure.length;
+        }
+        return 4L * (labels.length + level.length + seenBy.length + stack.length);
+    }
+
+    private void buildClosure(int[] order) {
+        words = (k + 63) >>> 6;
+        closure = new long[k * words];
+        for (int idx = k - 1; idx >= 0; idx--) {
+            int c = order[idx];
+            int row = c * words;
+            closure[row + (c >>> 6)] |= 1L << c;
+            for (int i = dag.edgeStart(c), end = dag.edgeEnd(c); i < end; i++) {
+                int from = dag.target(i) * words;
+                for (int w = 0; w < words; w++) {
+                    closure[row + w] |= closure[from + w];
+                }
+            }
+        }
+    }
+
+    // level[c] = length of the longest path ending at c; a path only goes up
+    private void buildLevels(int[] order) {
+        level = new int[k];
+        for (int c : order) {
+            for (int i = dag.edgeStart(c), end = dag.edgeEnd(c); i < end; i++) {
+                int t = dag.target(i);
+                level[t] = Math.max(level[t], level[c] + 1);
+            }
+        }
+    }
+
+    private void buildLabels(Random random) {
+        labels = new int[3 * traversals * k];
+        int[] roots = new int[k];
+        int rootCount = 0;
+        int[] inDegree = new int[k];
+        for (int i = 0; i < dag.getEdgeCount(); i++) {
+            inDegree[dag.target(i)]++;
+        }
+        for (int c = 0; c < k; c++) {
+            if (inDegree[c] == 0) {
+                roots[rootCount++] = c;
+            }
+        }
+
+        boolean[] visited = new boolean[k];
+        int[] callStack = new int[k];
+        int[] first = new int[k];
+        int[] cursor = new int[k];
+        int[] subtreeStart = new int[k];
+
+        for (int t = 0; t < traversals; t++) {
+            Arrays.fill(visited, false);
+            for (int i = rootCount - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = roots[i];
+                roots[i] = roots[j];
+                roots[j] = tmp;
+            }
+
+            int rank = 0;
+            for (int r = 0; r < rootCount; r++) {
+                int root = roots[r];
+                int top = 0;
+                visited[root] = true;
+                callStack[top++] = root;
+                subtreeStart[root] = rank;
+                enter(root, random, first, cursor);
+
+                while (top > 0) {
+                    int c = callStack[top - 1];
+                    int degree = dag.degree(c);
+                    if (cursor[c] < degree) {
+                        // Children are visited from a random rotation of the adjacency
+                        int child = dag.target(dag.edgeStart(c) + (first[c] + cursor[c]++) % degree);
+                        if (!visited[child]) {
+                            visited[child] = true;
+                            callStack[top++] = child;
+                            subtreeStart[child] = rank;
+                            enter(child, random, first, cursor);
+                        }
+                        continue;
+                    }
+                    top--;
+
+                    // Every child is finished (or was labelled in an earlier root's DFS)
+                    int low = rank;
+                    for (int i = dag.edgeStart(c), end = dag.edgeEnd(c); i < end; i++) {
+                        low = Math.min(low, labels[(dag.target(i) * traversals + t) * 3]);
+                    }
+                    int at = (c * traversals + t) * 3;
+                    labels[at] = low;
+                    labels[at + 1] = subtreeStart[c];
+                    labels[at + 2] = rank++;
+                }
+            }
+        }
+    }
+
+    private void enter(int c, Random random, int[] first, int[] cursor) {
+        int degree = dag.degree(c);
+        first[c] = degree > 1 ? random.nextInt(degree) : 0;
+        cursor[c] = 0;
+    }
+
+    // Necessary conditions for cu to reach cv; false means it certainly does not
+    private boolean mayReach(int cu, int cv) {
+        if (level[cu] >= level[cv]) {
+            return false;
+        }
+        int u = cu * traversals * 3;
+        int v = cv * traversals * 3;
+        for (int i = 0; i < 3 * traversals; i += 3) {
+            if (labels[v + i] < labels[u + i] || labels[v + i + 2] > labels[u + i + 2]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Sufficient condition: cv lies in cu's DFS subtree in some traversal
+    private boolean mustReach(int cu, int cv) {
+        int u = cu * traversals * 3;
+        int v = cv * traversals * 3;
+        for (int i = 0; i < 3 * traversals; i += 3) {
+            int rank = labels[v + i + 2];
+            if (rank >= labels[u + i + 1] && rank <= labels[u + i + 2]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean search(int cu, int cv) {
+        fallbacks++;
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(seenBy, 0);
+            stamp = 1;
+        }
+        int top = 0;
+        stack[top++] = cu;
+        seenBy[cu] = stamp;
+        while (top > 0) {
+            int c = stack[--top];
+            for (int i = dag.edgeStart(c), end = dag.edgeEnd(c); i < end; i++) {
+                int t = dag.target(i);
+                if (t == cv) {
+                    return true;
+                }
+                if (seenBy[t] != stamp) {
+                    seenBy[t] = stamp;
+                    if (mayReach(t, cv)) {
+                        if (mustReach(t, cv)) {
+                            return true;
+                        }
+                        stack[top++] = t;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
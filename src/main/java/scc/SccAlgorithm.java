@@ -0,0 +1,66 @@
+package scc;
+
+import graph.*;
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * Strategy for finding strongly connected components. Implementations record
+ * visits, edge traversals and time in the Metrics they were built with.
+ */
+public interface SccAlgorithm {
+    Components findComponents();
+
+    /** Name used in the results files. */
+    String getName();
+
+    /** Result of the last findComponents() call, or null before the first. */
+    Components getComponents();
+
+    /** Metrics the implementation records into. */
+    Metrics getMetrics();
+
+    default List<List<Integer>> findSCCs() {
+        return findComponents().toLists();
+    }
+
+    default void printResults() {
+        printResults(System.out);
+    }
+
+    /** Print the components of the last findComponents() call. */
+    default void printResults(PrintStream out) {
+        Components components = getComponents();
+        if (components == null) {
+            throw new IllegalStateException("findComponents() has not been called");
+        }
+        out.println("\n=== " + getName() + " SCC Results ===");
+        out.println("Number of SCCs: " + components.count());
+        for (int i = 0; i < components.count(); i++) {
+            out.println("SCC " + i + " (size " + components.size(i) + "): " + components.members(i));
+        }
+        out.println("Metrics: " + getMetrics());
+    }
+
+    /**
+     * Strategy for a CLI name: tarjan, kosaraju, gabow or parallel.
+     */
+    static SccAlgorithm create(String name, Graph graph, Metrics metrics) {
+        switch (name) {
+            case "tarjan":
+                return new TarjanSCC(graph, metrics);
+            case "kosaraju":
+                return new KosarajuSCC(graph, metrics);
+            case "gabow":
+                return new GabowSCC(graph, metrics);
+            case "parallel":
+                return new ParallelSCC(graph, metrics);
+            default:
+                throw new IllegalArgumentException("Unknown SCC algorithm: " + name);
+        }
+    }
+
+    static List<String> names() {
+        return Arrays.asList("tarjan", "kosaraju", "gabow", "parallel");
+    }
+}
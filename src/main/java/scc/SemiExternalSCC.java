@@ -0,0 +1,296 @@
+package scc;
+
+import graph.*;
+import java.util.*;
+
+/**
+ * SCCs with O(V) int arrays in memory and the edges only ever read node by
+ * node in sequential passes, so a disk-backed graph (BinaryGraphFormat.open)
+ * reads each block of targets at most once per pass. Passes alternate
+ * between ascending and descending node order, and every label is updated
+ * in place, so a pass carries it along any path whose nodes it meets in
+ * order. Each round:
+ *
+ *   1. trim: a live node with no live in-edge or no live out-edge from
+ *      another node is an SCC on its own. One pass counts in-degrees, then
+ *      passes remove such nodes until one removes few;
+ *   2. if the live edges now fit the residual budget, one pass loads them
+ *      and TarjanSCC finishes in memory;
+ *   3. otherwise colour (Orzan): forward passes give every live node the
+ *      largest id that reaches it, then backward passes mark the nodes of
+ *      each colour that reach the node the colour is named after. Each
+ *      colour's marked nodes form one SCC, and at least one SCC goes per
+ *      round.
+ *
+ * Components come out in Components.canonical numbering, so they equal
+ * tarjan.findComponents().canonical() on the same graph.
+ */
+public class SemiExternalSCC implements SccAlgorithm {
+    // A trim pass removing fewer live nodes than this fraction ends trimming
+    private static final int TRIM_CUTOFF = 64;
+
+    private Graph graph;
+    private Metrics metrics;
+    private long residualEdges = 1 << 20;
+    private Components components;
+
+    // Per node: component, or -1 while the node is live
+    private int[] comp;
+    private int[] inDegree;
+    private int[] color;
+    private int[] scratch;
+    private int count;
+    private int live;
+
+    private boolean ascending;
+    private int passes;
+    private long visits;
+    private long edgeTraversals;
+
+    public SemiExternalSCC(Graph graph, Metrics metrics) {
+        this.graph = graph;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Live edges at or below which the rest is solved in memory. Each costs
+     * about 20 bytes while loaded; 0 keeps everything in passes.
+     */
+    public SemiExternalSCC setResidualEdges(long residualEdges) {
+        this.residualEdges = residualEdges;
+        return this;
+    }
+
+    @Override
+    public String getName() { return "SemiExternal"; }
+
+    @Override
+    public Components findComponents() {
+        metrics.startTimer();
+
+        int n = graph.getN();
+        comp = new int[n];
+        Arrays.fill(comp, -1);
+        inDegree = new int[n];
+        color = new int[n];
+        scratch = new int[n];
+        count = 0;
+        live = n;
+        ascending = true;
+        passes = 0;
+        visits = 0;
+        edgeTraversals = 0;
+
+        while (live > 0) {
+            long liveEdges = trim();
+            if (live == 0) {
+                break;
+            }
+            if (liveEdges <= residualEdges) {
+                solveInMemory();
+                break;
+            }
+            colorRound();
+        }
+
+        components = Components.canonical(comp, count);
+        comp = null;
+        inDegree = null;
+        color = null;
+        scratch = null;
+
+        metrics.addVisits(visits);
+        metrics.addEdgeTraversals(edgeTraversals);
+        metrics.stopTimer();
+        return components;
+    }
+
+    /** Passes over the edges made by the last findComponents() call. */
+    public int getPasses() { return passes; }
+
+    @Override
+    public Components getComponents() { return components; }
+
+    @Override
+    public Metrics getMetrics() { return metrics; }
+
+    // Node visited k-th by the current pass
+    private int node(int k) {
+        return ascending ? k : graph.getN() - 1 - k;
+    }
+
+    private void endPass() {
+        passes++;
+        ascending = !ascending;
+    }
+
+    /** Remove trivially singleton nodes; returns an upper bound on live edges left. */
+    private long trim() {
+        int n = graph.getN();
+        for (int u = 0; u < n; u++) {
+            inDegree[u] = 0;
+        }
+        for (int k = 0; k < n; k++) {
+            int u = node(k);
+            if (comp[u] >= 0) {
+                continue;
+            }
+            visits++;
+            for (int i = graph.edgeStart(u), end = graph.edgeEnd(u); i < end; i++) {
+                int v = graph.target(i);
+                if (v != u && comp[v] < 0) {
+                    inDegree[v]++;
+                }
+            }
+            edgeTraversals += graph.edgeEnd(u) - graph.edgeStart(u);
+        }
+        endPass();
+
+        while (true) {
+            int before = live;
+            long liveEdges = 0;
+            for (int k = 0; k < n; k++) {
+                int u = node(k);
+                if (comp[u] >= 0) {
+                    continue;
+                }
+                visits++;
+                int start = graph.edgeStart(u);
+                int end = graph.edgeEnd(u);
+                int out = 0;
+                for (int i = start; i < end; i++) {
+                    int v = graph.target(i);
+                    if (v != u && comp[v] < 0) {
+                        out++;
+                    }
+                }
+                edgeTraversals += end - start;
+                if (out > 0 && inDegree[u] > 0) {
+                    liveEdges += out;
+                    continue;
+                }
+                comp[u] = count++;
+                live--;
+                for (int i = start; i < end && out > 0; i++) {
+                    int v = graph.target(i);
+                    if (v != u && comp[v] < 0) {
+                        inDegree[v]--;
+                    }
+                }
+            }
+            endPass();
+            if (live == 0 || before - live <= before / TRIM_CUTOFF) {
+                return liveEdges;
+            }
+        }
+    }
+
+    private void colorRound() {
+        int n = graph.getN();
+        for (int v = 0; v < n; v++) {
+            color[v] = v;
+        }
+
+        // Forward: largest live id that reaches each live node
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int k = 0; k < n; k++) {
+                int u = node(k);
+                if (comp[u] >= 0) {
+                    continue;
+                }
+                visits++;
+                int cu = color[u];
+                for (int i = graph.edgeStart(u), end = graph.edgeEnd(u); i < end; i++) {
+                    int v = graph.target(i);
+                    if (comp[v] < 0 && color[v] < cu) {
+                        color[v] = cu;
+                        changed = true;
+                    }
+                }
+                edgeTraversals += graph.edgeEnd(u) - graph.edgeStart(u);
+            }
+            endPass();
+        }
+
+        // Backward within each colour from the node it is named after
+        int[] marked = scratch;
+        for (int v = 0; v < n; v++) {
+            marked[v] = comp[v] < 0 && color[v] == v ? 1 : 0;
+        }
+        changed = true;
+        while (changed) {
+            changed = false;
+            for (int k = 0; k < n; k++) {
+                int u = node(k);
+                if (comp[u] >= 0 || marked[u] != 0) {
+                    continue;
+                }
+                visits++;
+                int end = graph.edgeEnd(u);
+                for (int i = graph.edgeStart(u); i < end; i++) {
+                    int v = graph.target(i);
+                    edgeTraversals++;
+                    if (marked[v] != 0 && comp[v] < 0 && color[v] == color[u]) {
+                        marked[u] = 1;
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+            endPass();
+        }
+
+        // Roots first, so every other marked node finds its colour's id
+        for (int v = 0; v < n; v++) {
+            if (marked[v] != 0 && color[v] == v) {
+                comp[v] = count++;
+                live--;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            if (marked[v] != 0 && color[v] != v) {
+                comp[v] = comp[color[v]];
+                live--;
+            }
+        }
+    }
+
+    private void solveInMemory() {
+        int n = graph.getN();
+        int[] local = scratch;
+        int[] global = new int[live];
+        int size = 0;
+        for (int v = 0; v < n; v++) {
+            if (comp[v] < 0) {
+                local[v] = size;
+                global[size++] = v;
+            }
+        }
+
+        Graph residual = new Graph(size, true);
+        for (int k = 0; k < n; k++) {
+            int u = node(k);
+            if (comp[u] >= 0) {
+                continue;
+            }
+            visits++;
+            for (int i = graph.edgeStart(u), end = graph.edgeEnd(u); i < end; i++) {
+                int v = graph.target(i);
+                if (comp[v] < 0) {
+                    residual.addEdge(local[u], local[v], 1);
+                }
+            }
+            edgeTraversals += graph.edgeEnd(u) - graph.edgeStart(u);
+        }
+        endPass();
+
+        Components inner = new TarjanSCC(residual, NoOpMetrics.INSTANCE).findComponents();
+        for (int j = 0; j < size; j++) {
+            comp[global[j]] = count + inner.componentOf(j);
+        }
+        count += inner.count();
+        live = 0;
+    }
+}
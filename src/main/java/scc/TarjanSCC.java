@@ -3,77 +3,116 @@ package scc;
 import graph.*;
 import java.util.*;
 
-public class TarjanSCC {
+/**
+ * Tarjan's SCC algorithm with an explicit call stack, so deep graphs such as
+ * long dependency chains do not depend on the thread stack size.
+ */
+public class TarjanSCC implements SccAlgorithm {
     private Graph graph;
     private Metrics metrics;
-    private int time;
-    private int[] disc;
-    private int[] low;
-    private boolean[] onStack;
-    private Stack<Integer> stack;
-    private List<List<Integer>> sccs;
+    private Components components;
 
     public TarjanSCC(Graph graph, Metrics metrics) {
         this.graph = graph;
         this.metrics = metrics;
-        this.time = 0;
-        this.disc = new int[graph.getN()];
-        this.low = new int[graph.getN()];
-        this.onStack = new boolean[graph.getN()];
-        this.stack = new Stack<>();
-        this.sccs = new ArrayList<>();
-        Arrays.fill(disc, -1);
     }
 
+    @Override
     public List<List<Integer>> findSCCs() {
+        return findComponents().toLists();
+    }
+
+    @Override
+    public String getName() { return "Tarjan"; }
+
+    @Override
+    public Components findComponents() {
         metrics.startTimer();
 
-        for (int v = 0; v < graph.getN(); v++) {
-            if (disc[v] == -1) {
-                dfs(v);
+        int n = graph.getN();
+        int[] disc = new int[n];
+        int[] low = new int[n];
+        int[] cursor = new int[n];
+        int[] callStack = new int[n];
+        int[] sccStack = new int[n];
+        boolean[] onStack = new boolean[n];
+
+        int[] componentOf = new int[n];
+        int[] offsets = new int[n + 1];
+        int[] nodes = new int[n];
+        int componentCount = 0;
+        int written = 0;
+
+        Arrays.fill(disc, -1);
+        int time = 0;
+        long visits = 0;
+        long edgeTraversals = 0;
+
+        for (int s = 0; s < n; s++) {
+            if (disc[s] != -1) {
+                continue;
             }
-        }
 
-        metrics.stopTimer();
-        return sccs;
-    }
+            int callTop = 0;
+            int sccTop = 0;
+            disc[s] = low[s] = time++;
+            cursor[s] = graph.edgeStart(s);
+            sccStack[sccTop++] = s;
+            onStack[s] = true;
+            callStack[callTop++] = s;
+            visits++;
 
-    private void dfs(int u) {
-        disc[u] = low[u] = time++;
-        stack.push(u);
-        onStack[u] = true;
-        metrics.incrementVisits();
-
-        for (Graph.Edge edge : graph.getEdges(u)) {
-            int v = edge.to;
-            metrics.incrementEdgeTraversals();
-
-            if (disc[v] == -1) {
-                dfs(v);
-                low[u] = Math.min(low[u], low[v]);
-            } else if (onStack[v]) {
-                low[u] = Math.min(low[u], disc[v]);
+            while (callTop > 0) {
+                int u = callStack[callTop - 1];
+
+                if (cursor[u] < graph.edgeEnd(u)) {
+                    int v = graph.target(cursor[u]++);
+                    edgeTraversals++;
+
+                    if (disc[v] == -1) {
+                        disc[v] = low[v] = time++;
+                        cursor[v] = graph.edgeStart(v);
+                        sccStack[sccTop++] = v;
+                        onStack[v] = true;
+                        callStack[callTop++] = v;
+                        visits++;
+                    } else if (onStack[v]) {
+                        low[u] = Math.min(low[u], disc[v]);
+                    }
+                    continue;
+                }
+
+                callTop--;
+
+                if (low[u] == disc[u]) {
+                    int v;
+                    do {
+                        v = sccStack[--sccTop];
+                        onStack[v] = false;
+                        componentOf[v] = componentCount;
+                        nodes[written++] = v;
+                    } while (v != u);
+                    offsets[++componentCount] = written;
+                }
+
+                if (callTop > 0) {
+                    int parent = callStack[callTop - 1];
+                    low[parent] = Math.min(low[parent], low[u]);
+                }
             }
         }
 
-        if (low[u] == disc[u]) {
-            List<Integer> scc = new ArrayList<>();
-            int v;
-            do {
-                v = stack.pop();
-                onStack[v] = false;
-                scc.add(v);
-            } while (v != u);
-            sccs.add(scc);
-        }
-    }
+        components = new Components(componentOf, Arrays.copyOf(offsets, componentCount + 1), nodes);
 
-    public void printResults() {
-        System.out.println("\n=== Tarjan SCC Results ===");
-        System.out.println("Number of SCCs: " + sccs.size());
-        for (int i = 0; i < sccs.size(); i++) {
-            System.out.println("SCC " + i + " (size " + sccs.get(i).size() + "): " + sccs.get(i));
-        }
-        System.out.println("Metrics: " + metrics);
+        metrics.addVisits(visits);
+        metrics.addEdgeTraversals(edgeTraversals);
+        metrics.stopTimer();
+        return components;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Components getComponents() { return components; }
+
+    @Override
+    public Metrics getMetrics() { return metrics; }
+}
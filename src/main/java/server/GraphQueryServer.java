@@ -0,0 +1,244 @@
+package server;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import dagsp.*;
+import graph.*;
+import scc.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Long-running HTTP server on localhost that loads graphs once and answers
+ * queries from memory. Every graph's SCCs, condensation and topological
+ * order are computed when it is added; shortest and longest distances are
+ * computed per source on first use and kept in a per-graph LRU cache.
+ *
+ *   GET /graphs                                  loaded graphs and cache counters
+ *   GET /component?graph=g&node=v                SCC of v and its members
+ *   GET /order?graph=g                           topological order (SCCs kept together)
+ *   GET /shortest?graph=g&source=s[&target=t]    distances from s, or distance and path to t
+ *   GET /longest?graph=g&source=s[&target=t]
+ *
+ * Replies are JSON. Bad parameters and path queries on cyclic graphs give
+ * 400, unknown graphs 404. Requests run on virtual threads when the runtime
+ * has them and on a fixed pool otherwise.
+ *
+ * The JDK server writes headers and body separately, so with Nagle's
+ * algorithm on each reply waits for the client's delayed ACK (~40 ms).
+ * Launch with -Dsun.net.httpserver.nodelay=true to avoid it; Main --serve
+ * sets it unless given. The property is JVM-wide, so this class leaves it
+ * alone.
+ */
+public class GraphQueryServer {
+    private static final Gson GSON = new GsonBuilder().serializeNulls().create();
+
+    private Map<String, ServedGraph> graphs = new ConcurrentHashMap<>();
+    private int cacheSize;
+    private int threads;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param cacheSize distance arrays kept per graph and path type
+     * @param threads   size of the fallback pool when virtual threads are missing
+     */
+    public GraphQueryServer(int cacheSize, int threads) {
+        this.cacheSize = cacheSize;
+        this.threads = Math.max(1, threads);
+    }
+
+    /** Load a graph and precompute its SCCs, condensation and order. */
+    public void addGraph(String name, Graph graph) {
+        graphs.put(name, new ServedGraph(name, graph, cacheSize));
+    }
+
+    public Set<String> getGraphNames() {
+        return new TreeSet<>(graphs.keySet());
+    }
+
+    /** Listen on localhost; port 0 picks a free port (see getPort). */
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = VirtualThreads.perTaskExecutor(() -> Executors.newFixedThreadPool(threads));
+        server.setExecutor(executor);
+        server.createContext("/graphs", handler(this::listGraphs));
+        server.createContext("/component", handler(this::component));
+        server.createContext("/order", handler(this::order));
+        server.createContext("/shortest", handler(query -> paths(query, true)));
+        server.createContext("/longest", handler(query -> paths(query, false)));
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    private Object listGraphs(Map<String, String> query) {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (String name : getGraphNames()) {
+            ServedGraph g = graphs.get(name);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", name);
+            entry.put("nodes", g.getGraph().getN());
+            entry.put("edges", g.getGraph().getEdgeCount());
+            entry.put("source", g.getGraph().getSource());
+            entry.put("sccs", g.getComponents().count());
+            entry.put("acyclic", g.isAcyclic());
+            entry.put("cacheHits", g.getCacheHits());
+            entry.put("cacheMisses", g.getCacheMisses());
+            list.add(entry);
+        }
+        return list;
+    }
+
+    private Object component(Map<String, String> query) {
+        ServedGraph g = graph(query);
+        int node = intParam(query, "node");
+        g.checkNode(node);
+        Components components = g.getComponents();
+        int c = components.componentOf(node);
+
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("node", node);
+        reply.put("component", c);
+        reply.put("size", components.size(c));
+        reply.put("members", components.members(c));
+        return reply;
+    }
+
+    private Object order(Map<String, String> query) {
+        ServedGraph g = graph(query);
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("acyclic", g.isAcyclic());
+        reply.put("order", g.getOrder());
+        reply.put("componentOrder", g.getComponentOrder());
+        return reply;
+    }
+
+    private Object paths(Map<String, String> query, boolean shortest) {
+        ServedGraph g = graph(query);
+        int source = intParam(query, "source");
+        int[] dist;
+        int unreachable;
+        DAGShortestPath sp = null;
+        DAGLongestPath lp = null;
+        if (shortest) {
+            sp = g.shortestPaths(source);
+            dist = sp.getDistances();
+            unreachable = Integer.MAX_VALUE;
+        } else {
+            lp = g.longestPaths(source);
+            dist = lp.getDistances();
+            unreachable = Integer.MIN_VALUE;
+        }
+
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("source", source);
+        if (query.containsKey("target")) {
+            int target = intParam(query, "target");
+            g.checkNode(target);
+            reply.put("target", target);
+            reply.put("distance", dist[target] == unreachable ? null : dist[target]);
+            reply.put("path", shortest ? sp.reconstructPath(target) : lp.reconstructPath(target));
+        } else {
+            Integer[] distances = new Integer[dist.length];
+            for (int v = 0; v < dist.length; v++) {
+                distances[v] = dist[v] == unreachable ? null : dist[v];
+            }
+            reply.put("distances", distances);
+        }
+        return reply;
+    }
+
+    private ServedGraph graph(Map<String, String> query) {
+        String name = query.get("graph");
+        if (name == null && graphs.size() == 1) {
+            name = graphs.keySet().iterator().next();
+        }
+        ServedGraph g = name == null ? null : graphs.get(name);
+        if (g == null) {
+            throw new NoSuchElementException("Unknown graph: " + name);
+        }
+        return g;
+    }
+
+    private static int intParam(Map<String, String> query, String key) {
+        String value = query.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter: " + key);
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not an integer: " + key + "=" + value);
+        }
+    }
+
+    private interface Query {
+        Object answer(Map<String, String> query);
+    }
+
+    private static HttpHandler handler(Query query) {
+        return exchange -> {
+            int status = 200;
+            Object reply;
+            try {
+                if (!exchange.getRequestMethod().equals("GET")) {
+                    status = 405;
+                    reply = Collections.singletonMap("error", "Only GET is supported");
+                } else {
+                    reply = query.answer(parseQuery(exchange.getRequestURI().getRawQuery()));
+                }
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                reply = Collections.singletonMap("error", e.getMessage());
+            } catch (NoSuchElementException e) {
+                status = 404;
+                reply = Collections.singletonMap("error", e.getMessage());
+            } catch (RuntimeException e) {
+                status = 500;
+                reply = Collections.singletonMap("error", String.valueOf(e));
+            }
+            send(exchange, status, GSON.toJson(reply));
+        };
+    }
+
+    private static Map<String, String> parseQuery(String raw) {
+        Map<String, String> query = new HashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package server;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Bounded least-recently-used map from int keys to values, safe for
+ * concurrent use. Values are computed outside the lock, so two threads that
+ * miss on the same key at once may both compute it; the later one wins.
+ */
+final class LruCache<V> {
+    private final LinkedHashMap<Integer, V> entries;
+    private long hits;
+    private long misses;
+
+    LruCache(int capacity) {
+        int limit = Math.max(1, capacity);
+        this.entries = new LinkedHashMap<Integer, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, V> eldest) {
+                return size() > limit;
+            }
+        };
+    }
+
+    V get(int key, IntFunction<V> compute) {
+        synchronized (this) {
+            V value = entries.get(key);
+            if (value != null) {
+                hits++;
+                return value;
+            }
+            misses++;
+        }
+        V value = compute.apply(key);
+        synchronized (this) {
+            entries.put(key, value);
+        }
+        return value;
+    }
+
+    synchronized void clear() { entries.clear(); }
+    synchronized int size() { return entries.size(); }
+    synchronized long getHits() { return hits; }
+    synchronized long getMisses() { return misses; }
+}
@@ -0,0 +1,85 @@
+package server;
+
+import analysis.*;
+import dagsp.*;
+import graph.*;
+import scc.*;
+import topo.*;
+import java.util.*;
+
+/**
+ * One graph held by the server with everything a query needs computed up
+ * front: SCCs, condensation, its topological order and the derived order of
+ * the original nodes. Queries run on any thread. The shared state is the
+ * session, whose accessors are synchronized because a weight change makes
+ * it drop its condensation, and the per-source path caches, which hold
+ * distances and are emptied when the graph's weight version moves.
+ */
+final class ServedGraph {
+    private String name;
+    private Graph graph;
+    private GraphAnalysisSession session;
+    private int[] order;
+    private LruCache<DAGShortestPath> shortest;
+    private LruCache<DAGLongestPath> longest;
+    private volatile long weightVersion;
+
+    ServedGraph(String name, Graph graph, int cacheSize) {
+        this.name = name;
+        this.graph = graph;
+        this.session = new GraphAnalysisSession(graph);
+        this.shortest = new LruCache<>(cacheSize);
+        this.longest = new LruCache<>(cacheSize);
+        this.weightVersion = graph.getWeightVersion();
+
+        session.getTopologicalOrder();
+        Components components = session.getComponents();
+        int[] componentOrder = session.getCondensationOrder();
+        order = new int[graph.getN()];
+        int k = 0;
+        for (int c : componentOrder) {
+            for (int i = components.memberStart(c); i < components.memberEnd(c); i++) {
+                order[k++] = components.member(i);
+            }
+        }
+    }
+
+    String getName() { return name; }
+    Graph getGraph() { return graph; }
+    Components getComponents() { return session.getComponents(); }
+    int[] getComponentOrder() { return session.getCondensationOrder(); }
+    boolean isAcyclic() { return session.isAcyclic(); }
+
+    /** Nodes in topological order, SCC members kept together. */
+    int[] getOrder() { return order; }
+
+    DAGShortestPath shortestPaths(int source) {
+        checkNode(source);
+        dropStalePaths();
+        return shortest.get(source, s -> session.shortestPaths(s, NoOpMetrics.INSTANCE));
+    }
+
+    DAGLongestPath longestPaths(int source) {
+        checkNode(source);
+        dropStalePaths();
+        return longest.get(source, s -> session.longestPaths(s, NoOpMetrics.INSTANCE));
+    }
+
+    long getCacheHits() { return shortest.getHits() + longest.getHits(); }
+    long getCacheMisses() { return shortest.getMisses() + longest.getMisses(); }
+
+    private void dropStalePaths() {
+        long current = graph.getWeightVersion();
+        if (current != weightVersion) {
+            shortest.clear();
+            longest.clear();
+            weightVersion = current;
+        }
+    }
+
+    void checkNode(int v) {
+        if (v < 0 || v >= graph.getN()) {
+            throw new IllegalArgumentException("Node " + v + " out of range [0, " + graph.getN() + ")");
+        }
+    }
+}
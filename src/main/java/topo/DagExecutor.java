@@ -0,0 +1,229 @@
+package topo;
+
+import graph.*;
+import scc.*;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs one task per node of the original graph, concurrently, in dependency
+ * order. Work is dispatched per component of the condensation: a component
+ * is submitted the moment the last of its predecessors finishes, tracked
+ * with an atomic counter of unfinished predecessors per component. The
+ * members of one SCC depend on each other cyclically, so they run one after
+ * another, in member order, inside a single job.
+ *
+ * If a task throws, or the pool rejects a job, components that have not
+ * started yet are skipped, and run() rethrows the first failure once every
+ * started job is done.
+ */
+public class DagExecutor {
+    private Graph dag;
+    private Components components;
+    private ExecutorService pool;
+
+    private AtomicIntegerArray waiting;
+    private CountDownLatch done;
+    private AtomicInteger running;
+    private AtomicInteger peakRunning;
+    private volatile Throwable failure;
+    private volatile int failedNode;
+
+    // Per component, nanoseconds since the start of run()
+    private long[] readyAt;
+    private long[] startedAt;
+    private long[] finishedAt;
+    private long origin;
+
+    public DagExecutor(CondensationGraph condensation) {
+        this(condensation, null);
+    }
+
+    /**
+     * @param pool where component jobs run; null uses one virtual thread per
+     *             job when the runtime has them, else a new work-stealing pool
+     */
+    public DagExecutor(CondensationGraph condensation, ExecutorService pool) {
+        this.dag = condensation.getCondensation();
+        this.components = condensation.getComponents();
+        this.pool = pool;
+    }
+
+    /** Run task(v) for every node v and wait for all of them. */
+    public Report run(IntConsumer task) throws InterruptedException {
+        int k = dag.getN();
+        waiting = new AtomicIntegerArray(k);
+        for (int i = 0; i < dag.getEdgeCount(); i++) {
+            waiting.incrementAndGet(dag.target(i));
+        }
+        done = new CountDownLatch(k);
+        running = new AtomicInteger();
+        peakRunning = new AtomicInteger();
+        failure = null;
+        readyAt = new long[k];
+        startedAt = new long[k];
+        finishedAt = new long[k];
+
+        ExecutorService executor = pool != null ? pool : VirtualThreads.perTaskExecutor(
+                () -> new ForkJoinPool(Runtime.getRuntime().availableProcessors()));
+        origin = System.nanoTime();
+        try {
+            for (int c = 0; c < k; c++) {
+                if (waiting.get(c) == 0) {
+                    submit(executor, c, task);
+                }
+            }
+            done.await();
+        } finally {
+            if (pool == null) {
+                executor.shutdown();
+            }
+        }
+        long wall = System.nanoTime() - origin;
+
+        if (failure != null) {
+            throw new IllegalStateException("Task " + failedNode + " failed", failure);
+        }
+        return new Report(wall);
+    }
+
+    private void submit(ExecutorService executor, int c, IntConsumer task) {
+        readyAt[c] = System.nanoTime() - origin;
+        try {
+            executor.execute(() -> {
+                try {
+                    runComponent(c, task);
+                } finally {
+                    for (int i = dag.edgeStart(c), end = dag.edgeEnd(c); i < end; i++) {
+                        int next = dag.target(i);
+                        if (waiting.decrementAndGet(next) == 0) {
+                            submit(executor, next, task);
+                        }
+                    }
+                    done.countDown();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            fail(components.member(components.memberStart(c)), e);
+            skip(c);
+        }
+    }
+
+    // Count down c and every component it makes ready, without running
+    // them: a failure is recorded, so none of them would run anyway.
+    // Iterative, since the skipped part of the DAG can be a long chain.
+    private void skip(int c) {
+        int[] stack = new int[dag.getN()];
+        int top = 0;
+        stack[top++] = c;
+        while (top > 0) {
+            int u = stack[--top];
+            for (int i = dag.edgeStart(u), end = dag.edgeEnd(u); i < end; i++) {
+                int next = dag.target(i);
+                if (waiting.decrementAndGet(next) == 0) {
+                    stack[top++] = next;
+                }
+            }
+            done.countDown();
+        }
+    }
+
+    private synchronized void fail(int node, Throwable t) {
+        if (failure == null) {
+            failedNode = node;
+            failure = t;
+        }
+    }
+
+    private void runComponent(int c, IntConsumer task) {
+        startedAt[c] = System.nanoTime() - origin;
+        if (failure == null) {
+            peakRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            int v = -1;
+            try {
+                for (int i = components.memberStart(c); i < components.memberEnd(c); i++) {
+                    v = components.member(i);
+                    task.accept(v);
+                }
+            } catch (Throwable t) {
+                fail(v, t);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+        finishedAt[c] = System.nanoTime() - origin;
+    }
+
+    /** What a run achieved compared with what the dependencies allow. */
+    public final class Report {
+        private int tasks;
+        private long wallNanos;
+        private long workNanos;
+        private long criticalPathNanos;
+        private int peakConcurrency;
+        private TimingStats queueingDelay;
+
+        private Report(long wallNanos) {
+            int k = dag.getN();
+            this.tasks = components.getComponentOf().length;
+            this.wallNanos = wallNanos;
+            this.peakConcurrency = peakRunning.get();
+
+            // Longest chain of measured component durations: no schedule can
+            // finish sooner than this, however many workers it has
+            long[] chain = new long[k];
+            long[] delays = new long[k];
+            for (int c : new TopologicalSort(dag, new MetricsImpl()).sortOrder()) {
+                long duration = finishedAt[c] - startedAt[c];
+                workNanos += duration;
+                chain[c] += duration;
+                criticalPathNanos = Math.max(criticalPathNanos, chain[c]);
+                for (int i = dag.edgeStart(c), end = dag.edgeEnd(c); i < end; i++) {
+                    chain[dag.target(i)] = Math.max(chain[dag.target(i)], chain[c]);
+                }
+                delays[c] = startedAt[c] - readyAt[c];
+            }
+            this.queueingDelay = k > 0 ? TimingStats.of(delays) : null;
+        }
+
+        public int getTasks() { return tasks; }
+        public int getComponents() { return dag.getN(); }
+        public double getWallMs() { return wallNanos / 1e6; }
+        /** Sum of all task durations. */
+        public double getWorkMs() { return workNanos / 1e6; }
+        public double getCriticalPathMs() { return criticalPathNanos / 1e6; }
+        public int getPeakConcurrency() { return peakConcurrency; }
+
+        public double getThroughput() {
+            return wallNanos > 0 ? tasks / (wallNanos / 1e9) : 0;
+        }
+
+        /** Critical path over wall time: 1 means no run could have been faster. */
+        public double getCriticalPathUtilization() {
+            return wallNanos > 0 ? (double) criticalPathNanos / wallNanos : 0;
+        }
+
+        /** Average parallelism achieved: total work over wall time. */
+        public double getParallelism() {
+            return wallNanos > 0 ? (double) workNanos / wallNanos : 0;
+        }
+
+        /** Time from a component becoming ready to it starting. */
+        public TimingStats getQueueingDelay() { return queueingDelay; }
+
+        public void print(PrintStream out) {
+            out.printf(Locale.ROOT, "Tasks: %d in %d components, wall %.2f ms, %.0f tasks/s%n",
+                    tasks, getComponents(), getWallMs(), getThroughput());
+            out.printf(Locale.ROOT, "Work: %.2f ms, critical path: %.2f ms (%.0f%% of wall), "
+                            + "parallelism %.2f, peak %d running%n",
+                    getWorkMs(), getCriticalPathMs(), 100 * getCriticalPathUtilization(),
+                    getParallelism(), peakConcurrency);
+            if (queueingDelay != null) {
+                out.println("Queueing delay: " + queueingDelay);
+            }
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package topo;
+
+import graph.*;
+import java.util.*;
+
+/**
+ * Topological order maintained under edge insertions with the Pearce-Kelly
+ * algorithm. Inserting u -> v when u already precedes v costs nothing;
+ * otherwise only the nodes whose position lies between ord(v) and ord(u)
+ * and that are reachable from v (or reach u) are visited and shuffled.
+ */
+public class DynamicTopologicalOrder {
+    private int n;
+    private Metrics metrics;
+    private int[] ord;
+    private int[] nodeAt;
+
+    // Adjacency in both directions, grown per node on demand
+    private int[][] out;
+    private int[] outCount;
+    private int[][] in;
+    private int[] inCount;
+
+    // Scratch state for the bounded searches
+    private int[] mark;
+    private int epoch;
+    private int[] parent;
+    private int[] stack;
+    private IntBag forward;
+    private IntBag backward;
+    private List<Integer> lastCycle;
+
+    public DynamicTopologicalOrder(int n, Metrics metrics) {
+        this.n = n;
+        this.metrics = metrics;
+        this.ord = new int[n];
+        this.nodeAt = new int[n];
+        this.out = new int[n][];
+        this.outCount = new int[n];
+        this.in = new int[n][];
+        this.inCount = new int[n];
+        this.mark = new int[n];
+        this.parent = new int[n];
+        this.stack = new int[n];
+        this.forward = new IntBag(16);
+        this.backward = new IntBag(16);
+        for (int v = 0; v < n; v++) {
+            ord[v] = v;
+            nodeAt[v] = v;
+        }
+    }
+
+    /**
+     * Start from the edges of an existing DAG.
+     */
+    public DynamicTopologicalOrder(Graph dag, Metrics metrics) {
+        this(dag.getN(), metrics);
+
+        List<Integer> order = new TopologicalSort(dag, new MetricsImpl()).sort();
+        if (order == null) {
+            throw new IllegalArgumentException("Graph contains a cycle");
+        }
+        for (int i = 0; i < n; i++) {
+            nodeAt[i] = order.get(i);
+            ord[nodeAt[i]] = i;
+        }
+        for (int u = 0; u < n; u++) {
+            for (int i = dag.edgeStart(u), end = dag.edgeEnd(u); i < end; i++) {
+                link(u, dag.target(i));
+            }
+        }
+    }
+
+    /**
+     * Insert u -> v and repair the order. If the edge would close a cycle it
+     * is not inserted, false is returned and the cycle is available from
+     * getLastCycle().
+     */
+    public boolean addEdge(int u, int v) {
+        lastCycle = null;
+        if (u == v) {
+            lastCycle = Collections.singletonList(u);
+            return false;
+        }
+
+        int lower = ord[v];
+        int upper = ord[u];
+        if (lower > upper) {
+            link(u, v);
+            return true;
+        }
+
+        epoch++;
+        forward.clear();
+        backward.clear();
+
+        if (!searchForward(v, u, upper)) {
+            lastCycle = cyclePath(v, u);
+            return false;
+        }
+        searchBackward(u, lower);
+        reorder();
+        link(u, v);
+        return true;
+    }
+
+    /**
+     * Forward DFS from start over nodes positioned at or before upper.
+     * Returns false if target is reached, i.e. the new edge closes a cycle.
+     */
+    private boolean searchForward(int start, int target, int upper) {
+        int top = 0;
+        stack[top++] = start;
+        mark[start] = epoch;
+        parent[start] = -1;
+        long edgeTraversals = 0;
+
+        while (top > 0) {
+            int w = stack[--top];
+            forward.add(w);
+
+            int[] edges = out[w];
+            for (int i = 0; i < outCount[w]; i++) {
+                int x = edges[i];
+                edgeTraversals++;
+                if (x == target) {
+                    parent[x] = w;
+                    metrics.addVisits(forward.size());
+                    metrics.addEdgeTraversals(edgeTraversals);
+                    return false;
+                }
+                if (mark[x] != epoch && ord[x] < upper) {
+                    mark[x] = epoch;
+                    parent[x] = w;
+                    stack[top++] = x;
+                }
+            }
+        }
+        metrics.addVisits(forward.size());
+        metrics.addEdgeTraversals(edgeTraversals);
+        return true;
+    }
+
+    private void searchBackward(int start, int lower) {
+        int top = 0;
+        stack[top++] = start;
+        mark[start] = epoch;
+        long edgeTraversals = 0;
+
+        while (top > 0) {
+            int w = stack[--top];
+            backward.add(w);
+
+            int[] edges = in[w];
+            for (int i = 0; i < inCount[w]; i++) {
+                int x = edges[i];
+                edgeTraversals++;
+                if (mark[x] != epoch && ord[x] > lower) {
+                    mark[x] = epoch;
+                    stack[top++] = x;
+                }
+            }
+        }
+        metrics.addVisits(backward.size());
+        metrics.addEdgeTraversals(edgeTraversals);
+    }
+
+    /**
+     * Give the backward set the lowest of the freed positions and the
+     * forward set the rest, each keeping its current relative order.
+     */
+    private void reorder() {
+        long[] b = sortByOrd(backward);
+        long[] f = sortByOrd(forward);
+
+        int[] slots = new int[b.length + f.length];
+        int i = 0, j = 0, k = 0;
+        while (i < b.length || j < f.length) {
+            if (j == f.length || (i < b.length && b[i] < f[j])) {
+                slots[k++] = (int) (b[i++] >>> 32);
+            } else {
+                slots[k++] = (int) (f[j++] >>> 32);
+            }
+        }
+
+        k = 0;
+        for (long entry : b) {
+            place((int) entry, slots[k++]);
+        }
+        for (long entry : f) {
+            place((int) entry, slots[k++]);
+        }
+    }
+
+    // (ord << 32 | node) keys, so sorting the longs sorts the nodes by position
+    private long[] sortByOrd(IntBag nodes) {
+        long[] keys = new long[nodes.size()];
+        for (int i = 0; i < keys.length; i++) {
+            int w = nodes.get(i);
+            keys[i] = ((long) ord[w] << 32) | w;
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private void place(int node, int position) {
+        ord[node] = position;
+        nodeAt[position] = node;
+    }
+
+    private List<Integer> cyclePath(int from, int to) {
+        List<Integer> path = new ArrayList<>();
+        for (int w = to; w != -1; w = parent[w]) {
+            path.add(w);
+            if (w == from) {
+                break;
+            }
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    private void link(int u, int v) {
+        if (out[u] == null) {
+            out[u] = new int[2];
+        } else if (outCount[u] == out[u].length) {
+            out[u] = Arrays.copyOf(out[u], outCount[u] * 2);
+        }
+        out[u][outCount[u]++] = v;
+
+        if (in[v] == null) {
+            in[v] = new int[2];
+        } else if (inCount[v] == in[v].length) {
+            in[v] = Arrays.copyOf(in[v], inCount[v] * 2);
+        }
+        in[v][inCount[v]++] = u;
+    }
+
+    public int getN() { return n; }
+    public int position(int v) { return ord[v]; }
+    public int nodeAt(int position) { return nodeAt[position]; }
+    public boolean precedes(int u, int v) { return ord[u] < ord[v]; }
+
+    /** Current order as a fresh array, first node first. */
+    public int[] getOrder() { return Arrays.copyOf(nodeAt, n); }
+
+    /**
+     * Path v, ..., u of the cycle that the last rejected addEdge(u, v)
+     * would have closed, or null if the last insertion succeeded.
+     */
+    public List<Integer> getLastCycle() { return lastCycle; }
+}
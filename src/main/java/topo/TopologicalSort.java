@@ -1,6 +1,8 @@
 package topo;
 
 import graph.*;
+import scc.Components;
+import java.io.PrintStream;
 import java.util.*;
 
 public class TopologicalSort {
@@ -13,48 +15,66 @@ public class TopologicalSort {
     }
 
     public List<Integer> sort() {
+        int[] order = sortOrder();
+        if (order == null) {
+            return null;
+        }
+
+        List<Integer> topoOrder = new ArrayList<>(order.length);
+        for (int v : order) {
+            topoOrder.add(v);
+        }
+        return topoOrder;
+    }
+
+    /**
+     * Kahn's algorithm into a flat array, or null if the graph has a cycle.
+     * The order array doubles as the FIFO queue.
+     */
+    public int[] sortOrder() {
         metrics.startTimer();
 
-        int[] inDegree = new int[graph.getN()];
+        int n = graph.getN();
+        int[] inDegree = new int[n];
 
-        for (int u = 0; u < graph.getN(); u++) {
-            for (Graph.Edge edge : graph.getEdges(u)) {
-                inDegree[edge.to]++;
+        for (int u = 0; u < n; u++) {
+            for (int i = graph.edgeStart(u), end = graph.edgeEnd(u); i < end; i++) {
+                inDegree[graph.target(i)]++;
             }
         }
 
-        Queue<Integer> queue = new LinkedList<>();
-        for (int i = 0; i < graph.getN(); i++) {
+        int[] order = new int[n];
+        int tail = 0;
+        for (int i = 0; i < n; i++) {
             if (inDegree[i] == 0) {
-                queue.offer(i);
+                order[tail++] = i;
             }
         }
 
-        List<Integer> topoOrder = new ArrayList<>();
+        long edgeTraversals = 0;
+        for (int head = 0; head < tail; head++) {
+            int u = order[head];
 
-        while (!queue.isEmpty()) {
-            int u = queue.poll();
-            topoOrder.add(u);
-            metrics.incrementVisits();
-
-            for (Graph.Edge edge : graph.getEdges(u)) {
-                int v = edge.to;
-                metrics.incrementEdgeTraversals();
+            for (int i = graph.edgeStart(u), end = graph.edgeEnd(u); i < end; i++) {
+                int v = graph.target(i);
+                edgeTraversals++;
                 inDegree[v]--;
 
                 if (inDegree[v] == 0) {
-                    queue.offer(v);
+                    order[tail++] = v;
                 }
             }
         }
 
+        metrics.addVisits(tail);
+        metrics.addEdgeTraversals(edgeTraversals);
         metrics.stopTimer();
 
-        if (topoOrder.size() != graph.getN()) {
+        if (tail != n) {
             return null;
         }
 
-        return topoOrder;
+        return order;
     }
 
     public static List<Integer> getDerivedTaskOrder(List<Integer> componentOrder,
@@ -66,13 +86,28 @@ public class TopologicalSort {
         return taskOrder;
     }
 
+    public static List<Integer> getDerivedTaskOrder(List<Integer> componentOrder,
+                                                    Components components) {
+        List<Integer> taskOrder = new ArrayList<>(components.getComponentOf().length);
+        for (int compId : componentOrder) {
+            for (int i = components.memberStart(compId); i < components.memberEnd(compId); i++) {
+                taskOrder.add(components.member(i));
+            }
+        }
+        return taskOrder;
+    }
+
     public void printResults(List<Integer> order) {
-        System.out.println("\n=== Topological Sort Results ===");
+        printResults(System.out, order);
+    }
+
+    public void printResults(PrintStream out, List<Integer> order) {
+        out.println("\n=== Topological Sort Results ===");
         if (order == null) {
-            System.out.println("Graph contains a cycle - no topological order exists");
+            out.println("Graph contains a cycle - no topological order exists");
         } else {
-            System.out.println("Topological Order: " + order);
+            out.println("Topological Order: " + order);
         }
-        System.out.println("Metrics: " + metrics);
+        out.println("Metrics: " + metrics);
     }
 }
\ No newline at end of file
@@ -2,8 +2,16 @@ import graph.*;
 import scc.*;
 import topo.*;
 import dagsp.*;
+import analysis.*;
+import server.*;
 import org.junit.Test;
+import java.net.URI;
+import java.net.http.*;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.stream.*;
 import static org.junit.Assert.*;
 
 public class GraphAlgorithmsTest {
@@ -185,4 +193,1047 @@ public class GraphAlgorithmsTest {
         int[] distances = lp.getDistances();
         assertEquals("Longest path to 3 should be 7", 7, distances[3]);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGraph_CSRKeepsInsertionOrder() {
+        Graph graph = new Graph(3, true);
+        graph.addEdge(1, 2, 7);
+        graph.addEdge(0, 2, 4);
+        graph.addEdge(0, 1, 3);
+
+        assertEquals(3, graph.getEdgeCount());
+        assertEquals(2, graph.degree(0));
+        assertEquals(0, graph.degree(2));
+
+        int i = graph.edgeStart(0);
+        assertEquals(2, graph.target(i));
+        assertEquals(4, graph.weight(i));
+        assertEquals(1, graph.target(i + 1));
+        assertEquals(3, graph.weight(i + 1));
+
+        // Adding after the graph was frozen rebuilds the CSR arrays
+        graph.addEdge(2, 0, 1);
+        assertEquals(4, graph.getEdgeCount());
+        assertEquals(0, graph.target(graph.edgeStart(2)));
+        assertEquals(7, graph.weight(graph.edgeStart(1)));
+        graph.addEdge(0, 0, 9);
+        assertEquals(3, graph.degree(0));
+        assertEquals(9, graph.weight(graph.edgeEnd(0) - 1));
+
+        // Buffer-backed graphs are read-only
+        try {
+            graph.toOffHeap().addEdge(0, 1, 1);
+            fail("Expected addEdge on an off-heap graph to be rejected");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSCC_FlatComponents() {
+        // 0 <-> 1 -> 2
+        Graph graph = new Graph(3, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 0, 1);
+        graph.addEdge(1, 2, 1);
+
+        TarjanSCC tarjan = new TarjanSCC(graph, new MetricsImpl());
+        try {
+            tarjan.printResults(new java.io.PrintStream(new java.io.ByteArrayOutputStream()));
+            fail("Expected printResults before findComponents to be rejected");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        Components components = tarjan.findComponents();
+
+        assertEquals(2, components.count());
+        assertEquals(components.componentOf(0), components.componentOf(1));
+        assertNotEquals(components.componentOf(0), components.componentOf(2));
+        assertEquals(2, components.size(components.componentOf(0)));
+    }
+
+    @Test
+    public void testSCC_LongChainDoesNotOverflow() {
+        int n = 1_000_000;
+        Graph graph = new Graph(n, true);
+        for (int i = 0; i + 1 < n; i++) {
+            graph.addEdge(i, i + 1, 1);
+        }
+        graph.addEdge(n - 1, 0, 1);
+
+        TarjanSCC tarjan = new TarjanSCC(graph, new MetricsImpl());
+        Components components = tarjan.findComponents();
+
+        assertEquals("Closed chain is a single SCC", 1, components.count());
+        assertEquals(n, components.size(0));
+    }
+
+    @Test
+    public void testParallelSCC_MatchesTarjan() {
+        // One giant cycle plus random edges and a tail of singletons
+        int n = 20_000;
+        Random random = new Random(42);
+        Graph graph = new Graph(n, true);
+        for (int i = 0; i < 12_000; i++) {
+            graph.addEdge(i, (i + 1) % 12_000, 1);
+        }
+        for (int i = 0; i < 3 * n; i++) {
+            int u = random.nextInt(n);
+            int v = random.nextInt(n);
+            if (u >= 12_000 && v >= 12_000 && u > v) {
+                graph.addEdge(v, u, 1);
+            } else {
+                graph.addEdge(u, v, 1);
+            }
+        }
+
+        Components expected = new TarjanSCC(graph, new MetricsImpl()).findComponents();
+        Components actual = new ParallelSCC(graph, new MetricsImpl()).findComponents();
+
+        assertSamePartition(expected, actual, n);
+    }
+
+    private static void assertSamePartition(Components expected, Components actual, int n) {
+        assertEquals("Component count", expected.count(), actual.count());
+        int[] mapping = new int[expected.count()];
+        Arrays.fill(mapping, -1);
+        for (int v = 0; v < n; v++) {
+            int e = expected.componentOf(v);
+            if (mapping[e] == -1) {
+                mapping[e] = actual.componentOf(v);
+            }
+            assertEquals("Node " + v + " in a different component", mapping[e], actual.componentOf(v));
+        }
+    }
+
+    @Test
+    public void testGraph_StreamingJsonAnyKeyOrder() throws Exception {
+        Path file = Files.createTempFile("graph", ".json");
+        Files.writeString(file,
+                "{\"edges\": [{\"u\": 1, \"v\": 2, \"w\": 5}, {\"u\": 0, \"v\": 1, \"w\": 3}],"
+                        + " \"comment\": [1, 2], \"n\": 3, \"directed\": true,"
+                        + " \"source\": 1, \"weight_model\": \"edge\"}");
+        try {
+            Graph graph = Graph.fromJson(file.toString());
+
+            assertEquals(3, graph.getN());
+            assertEquals(2, graph.getEdgeCount());
+            assertEquals(1, graph.getSource());
+            assertEquals("edge", graph.getWeightModel());
+            assertEquals(1, graph.target(graph.edgeStart(0)));
+            assertEquals(5, graph.weight(graph.edgeStart(1)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testGraph_BinaryRoundTrip() throws Exception {
+        Graph graph = new Graph(4, true);
+        graph.addEdge(0, 1, 2);
+        graph.addEdge(0, 2, 6);
+        graph.addEdge(1, 3, 3);
+        graph.addEdge(2, 3, 1);
+        graph.setSource(0);
+        graph.setWeightModel("edge");
+
+        Path file = Files.createTempFile("graph", BinaryGraphFormat.EXTENSION);
+        try {
+            BinaryGraphFormat.write(graph, file.toString());
+            Graph mapped = BinaryGraphFormat.map(file.toString());
+
+            assertEquals(4, mapped.getN());
+            assertEquals(4, mapped.getEdgeCount());
+            assertEquals("edge", mapped.getWeightModel());
+
+            DAGShortestPath sp = new DAGShortestPath(mapped, new MetricsImpl());
+            sp.computeShortestPaths(mapped.getSource());
+            assertEquals(5, sp.getDistances()[3]);
+
+            Graph opened = BinaryGraphFormat.open(file.toString(), 1 << 20);
+            try {
+                assertTrue(opened.isDiskBacked());
+                try {
+                    opened.addEdge(3, 0, 1);
+                    fail("Disk-backed graph accepted an edge");
+                } catch (UnsupportedOperationException expected) {
+                }
+                assertTrue(opened.isDiskBacked());
+                assertEquals(4, opened.getEdgeCount());
+                try {
+                    new ParallelSCC(opened, new MetricsImpl()).findComponents();
+                    fail("ParallelSCC accepted a disk-backed graph");
+                } catch (IllegalArgumentException expected) {
+                }
+                try {
+                    new ParallelTopologicalSort(opened, new MetricsImpl()).sort();
+                    fail("ParallelTopologicalSort accepted a disk-backed graph");
+                } catch (IllegalArgumentException expected) {
+                }
+                try {
+                    new MultiSourcePaths(opened, new MetricsImpl())
+                            .compute(new int[]{0}, MultiSourcePaths.PathType.SHORTEST);
+                    fail("MultiSourcePaths accepted a disk-backed graph");
+                } catch (IllegalArgumentException expected) {
+                }
+            } finally {
+                BinaryGraphFormat.close(opened);
+            }
+
+            // Corrupt n and the weight model length: 3 and 6 ints into the header
+            byte[] original = Files.readAllBytes(file);
+            int[][] corruptions = {{3, -5}, {6, -1}, {6, 1000}};
+            for (int[] corruption : corruptions) {
+                byte[] bytes = original.clone();
+                java.nio.ByteBuffer.wrap(bytes).order(java.nio.ByteOrder.LITTLE_ENDIAN)
+                        .putInt(4 * corruption[0], corruption[1]);
+                Files.write(file, bytes);
+                try {
+                    BinaryGraphFormat.map(file.toString());
+                    fail("Accepted header field " + corruption[0] + " = " + corruption[1]);
+                } catch (java.io.IOException expected) {
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testCondensation_ParallelEdgeWeights() {
+        // {0, 1} is one SCC with two edges into 2
+        Graph graph = new Graph(3, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 0, 1);
+        graph.addEdge(0, 2, 8);
+        graph.addEdge(1, 2, 3);
+
+        Components components = new TarjanSCC(graph, new MetricsImpl()).findComponents();
+        int from = components.componentOf(0);
+
+        for (CondensationGraph.WeightPolicy policy : CondensationGraph.WeightPolicy.values()) {
+            CondensationGraph condensation = new CondensationGraph(graph, components, policy);
+            Graph dag = condensation.getCondensation();
+
+            assertEquals(2, dag.getN());
+            assertEquals("Duplicate edges should be merged", 1, dag.getEdgeCount());
+            assertEquals(components.componentOf(2), dag.target(dag.edgeStart(from)));
+            int expected = policy == CondensationGraph.WeightPolicy.MIN ? 3 : 8;
+            assertEquals(policy.name(), expected, dag.weight(dag.edgeStart(from)));
+        }
+        assertEquals(from, new CondensationGraph(graph, components).getMapping()[1]);
+    }
+
+    @Test
+    public void testParallelTopo_LevelsOfWideDAG() {
+        // Three layers: 0 -> {1..3000} -> 3001, plus one skip edge 0 -> 3001
+        int width = 3000;
+        Graph graph = new Graph(width + 2, true);
+        for (int i = 1; i <= width; i++) {
+            graph.addEdge(0, i, 1);
+            graph.addEdge(i, width + 1, 1);
+        }
+        graph.addEdge(0, width + 1, 1);
+
+        ParallelTopologicalSort topo = new ParallelTopologicalSort(graph, new MetricsImpl());
+        List<Integer> order = topo.sort();
+
+        assertNotNull(order);
+        assertEquals(width + 2, order.size());
+        assertEquals(3, topo.getLevelCount());
+        int[] levels = topo.getLevels();
+        assertEquals(0, levels[0]);
+        assertEquals(1, levels[width / 2]);
+        assertEquals(2, levels[width + 1]);
+        for (int u = 0; u < graph.getN(); u++) {
+            for (int i = graph.edgeStart(u); i < graph.edgeEnd(u); i++) {
+                assertTrue(levels[u] < levels[graph.target(i)]);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelTopo_WithCycle() {
+        Graph graph = new Graph(3, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(2, 1, 1);
+
+        assertNull(new ParallelTopologicalSort(graph, new MetricsImpl()).sort());
+    }
+
+    @Test
+    public void testDynamicTopo_ReordersAndRejectsCycles() {
+        // Start from 0 -> 1, 2 -> 3 with identity order; then require 3 before 0
+        Graph graph = new Graph(4, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(2, 3, 1);
+        DynamicTopologicalOrder dynamic = new DynamicTopologicalOrder(graph, new MetricsImpl());
+
+        assertTrue(dynamic.addEdge(3, 0));
+        assertTrue(dynamic.precedes(2, 3));
+        assertTrue(dynamic.precedes(3, 0));
+        assertTrue(dynamic.precedes(0, 1));
+
+        assertFalse("1 -> 2 closes 2 -> 3 -> 0 -> 1", dynamic.addEdge(1, 2));
+        assertEquals(Arrays.asList(2, 3, 0, 1), dynamic.getLastCycle());
+        assertTrue("Rejected edge must not change the order", dynamic.precedes(2, 1));
+
+        int[] order = dynamic.getOrder();
+        for (int p = 0; p < order.length; p++) {
+            assertEquals(p, dynamic.position(order[p]));
+        }
+    }
+
+    @Test
+    public void testDynamicSCC_MatchesTarjanUnderUpdates() {
+        int n = 40;
+        Random random = new Random(3);
+        Graph initial = new Graph(n, true);
+        List<int[]> edges = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            int u = random.nextInt(n), v = random.nextInt(n);
+            initial.addEdge(u, v, 1);
+            edges.add(new int[]{u, v});
+        }
+        DynamicSCC dynamic = new DynamicSCC(initial, new MetricsImpl());
+
+        for (int step = 0; step < 400; step++) {
+            if (!edges.isEmpty() && random.nextInt(3) == 0) {
+                int[] e = edges.remove(random.nextInt(edges.size()));
+                assertTrue(dynamic.removeEdge(e[0], e[1]));
+            } else {
+                int u = random.nextInt(n), v = random.nextInt(n);
+                dynamic.addEdge(u, v);
+                edges.add(new int[]{u, v});
+            }
+
+            Graph current = new Graph(n, true);
+            for (int[] e : edges) {
+                current.addEdge(e[0], e[1], 1);
+            }
+            Components expected = new TarjanSCC(current, new MetricsImpl()).findComponents();
+            Components actual = dynamic.snapshot();
+            assertSamePartition(expected, actual, n);
+
+            // The snapshot numbers components topologically, so every cross edge goes forward
+            for (int[] e : edges) {
+                int a = actual.componentOf(e[0]), b = actual.componentOf(e[1]);
+                assertTrue("Edge against the order at step " + step, a <= b);
+                if (a != b) {
+                    assertTrue(dynamic.condensationEdges(dynamic.componentOf(e[0]),
+                            dynamic.componentOf(e[1])) > 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSession_CachesUntilGraphChanges() {
+        Graph graph = new Graph(3, true);
+        graph.addEdge(0, 1, 4);
+        graph.addEdge(1, 2, 4);
+
+        GraphAnalysisSession session = new GraphAnalysisSession(graph);
+        int[] order = session.getTopologicalOrder();
+        assertSame("Order should be cached", order, session.getTopologicalOrder());
+        assertEquals(8, session.shortestPaths(0).getDistances()[2]);
+        assertEquals(3, session.getComponents().count());
+
+        graph.addEdge(0, 2, 1);
+        assertNotSame("Adding an edge invalidates the cache", order, session.getTopologicalOrder());
+        assertEquals(1, session.shortestPaths(0).getDistances()[2]);
+        assertEquals(8, session.longestPaths(0).getDistances()[2]);
+
+        order = session.getTopologicalOrder();
+        CondensationGraph condensation = session.getCondensation();
+        graph.setWeight(graph.findEdge(0, 2), 9);
+        assertSame("A weight change keeps the order", order, session.getTopologicalOrder());
+        assertNotSame("A weight change drops the condensation", condensation, session.getCondensation());
+        int[] comp = session.getComponents().getComponentOf();
+        Graph dag = session.getCondensation().getCondensation();
+        assertEquals(9, dag.weight(dag.findEdge(comp[0], comp[2])));
+        assertEquals(8, session.shortestPaths(0).getDistances()[2]);
+        assertEquals(9, session.longestPaths(0).getDistances()[2]);
+
+        graph.addEdge(2, 0, 1);
+        assertFalse(session.isAcyclic());
+        assertEquals(1, session.getComponents().count());
+    }
+
+    @Test
+    public void testMultiSource_MatchesSingleSourceRuns() {
+        int n = 200;
+        Random random = new Random(5);
+        Graph graph = new Graph(n, true);
+        for (int u = 0; u + 1 < n; u++) {
+            for (int k = 0; k < 3; k++) {
+                graph.addEdge(u, u + 1 + random.nextInt(Math.min(20, n - u - 1)), 1 + random.nextInt(9));
+            }
+        }
+        int[] sources = new int[19];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = random.nextInt(n);
+        }
+
+        MultiSourcePaths batch = new MultiSourcePaths(graph, new MetricsImpl());
+        DistanceMatrix shortest = batch.compute(sources, MultiSourcePaths.PathType.SHORTEST);
+        DistanceMatrix longest = batch.compute(sources, MultiSourcePaths.PathType.LONGEST);
+
+        for (int row = 0; row < sources.length; row++) {
+            DAGShortestPath sp = new DAGShortestPath(graph, new MetricsImpl());
+            sp.computeShortestPaths(sources[row]);
+            DAGLongestPath lp = new DAGLongestPath(graph, new MetricsImpl());
+            lp.computeLongestPaths(sources[row]);
+            assertArrayEquals(sp.getDistances(), shortest.row(row));
+            assertArrayEquals(lp.getDistances(), longest.row(row));
+        }
+    }
+
+    @Test
+    public void testMetrics_ImplementationsAgree() {
+        Graph graph = new Graph(4, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        graph.addEdge(2, 3, 1);
+        graph.addEdge(0, 3, 5);
+
+        MetricsImpl plain = new MetricsImpl();
+        ConcurrentMetrics concurrent = new ConcurrentMetrics();
+        new DAGShortestPath(graph, plain).computeShortestPaths(0);
+        new DAGShortestPath(graph, concurrent).computeShortestPaths(0);
+        new DAGShortestPath(graph, NoOpMetrics.INSTANCE).computeShortestPaths(0);
+
+        assertEquals(4, plain.getVisits());
+        assertEquals(4, plain.getEdgeTraversals());
+        assertEquals(plain.getRelaxations(), concurrent.getRelaxations());
+        assertEquals(plain.getEdgeTraversals(), concurrent.getEdgeTraversals());
+        assertEquals(0, NoOpMetrics.INSTANCE.getEdgeTraversals());
+
+        // Per-event counts reach the shared delegate once flushed
+        ConcurrentMetrics shared = new ConcurrentMetrics();
+        BatchingMetrics batched = new BatchingMetrics(shared);
+        for (int i = 0; i < 4; i++) {
+            batched.incrementEdgeTraversals();
+        }
+        assertEquals(0, shared.getEdgeTraversals());
+        batched.stopTimer();
+        assertEquals(4, shared.getEdgeTraversals());
+        new DAGShortestPath(graph, batched).computeShortestPaths(0);
+        assertEquals(plain.getRelaxations(), batched.getRelaxations());
+    }
+
+    @Test
+    public void testGenerator_PlantedSCCsInBothFormats() throws Exception {
+        GraphGenerator generator = new GraphGenerator(GraphGenerator.Shape.PLANTED_SCC, 1000, 4000, 11)
+                .setComponentSize(10)
+                .setWeightModel("node");
+        Path json = Files.createTempFile("generated", ".json");
+        Path bin = Files.createTempFile("generated", BinaryGraphFormat.EXTENSION);
+        try {
+            generator.write(json.toString());
+            generator.write(bin.toString());
+            Graph fromJson = Graph.fromJson(json.toString());
+            Graph mapped = BinaryGraphFormat.map(bin.toString());
+
+            assertEquals(4000, fromJson.getEdgeCount());
+            assertEquals("node", mapped.getWeightModel());
+            for (int u = 0; u < 1000; u++) {
+                assertEquals(fromJson.degree(u), mapped.degree(u));
+                for (int i = fromJson.edgeStart(u), j = mapped.edgeStart(u); i < fromJson.edgeEnd(u); i++, j++) {
+                    assertEquals(fromJson.target(i), mapped.target(j));
+                    assertEquals(fromJson.weight(i), mapped.weight(j));
+                }
+            }
+
+            Components components = new TarjanSCC(mapped, new MetricsImpl()).findComponents();
+            assertEquals(100, components.count());
+            assertEquals(components.componentOf(0), components.componentOf(9));
+        } finally {
+            Files.delete(json);
+            Files.delete(bin);
+        }
+    }
+
+    @Test
+    public void testResultsLogger_ParallelRowsAreLocaleIndependent() throws Exception {
+        Path dir = Files.createTempDirectory("results");
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            try (ResultsLogger logger = new ResultsLogger(dir.toString(), ResultsLogger.Format.CSV)) {
+                logger.initializeCSVs();
+                IntStream.range(0, 400).parallel().forEach(i ->
+                        logger.logSCCResults("g" + i, 10, 20, "Tarjan", 3, 10, 20, 0.042));
+            }
+            try (ResultsLogger logger = new ResultsLogger(dir.toString(), ResultsLogger.Format.JSON_LINES)) {
+                logger.initializeCSVs();
+                logger.logTopoResults("a,b", 5, 4, "Kahn", true, 5, 4, 1.5);
+            }
+
+            List<String> csv = Files.readAllLines(dir.resolve("scc_results.csv"));
+            assertEquals(401, csv.size());
+            assertTrue(csv.get(1).startsWith("g") && csv.get(1).contains(",0.042,1,0.042,"));
+            List<String> jsonl = Files.readAllLines(dir.resolve("topo_results.jsonl"));
+            assertEquals(1, jsonl.size());
+            assertTrue(jsonl.get(0).startsWith("{\"Dataset\": \"a,b\", \"Nodes\": 5, \"Edges\": 4,"
+                    + " \"Algorithm\": \"Kahn\", \"Success\": true, \"Visits\": 5,"
+                    + " \"EdgeTraversals\": 4, \"TimeMS\": 1.500, \"Trials\": 1,"));
+        } finally {
+            Locale.setDefault(previous);
+            try (Stream<Path> files = Files.list(dir)) {
+                files.forEach(f -> f.toFile().delete());
+            }
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    public void testPrintResults_WritesToGivenStream() {
+        Graph graph = new Graph(3, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 0, 1);
+        graph.addEdge(1, 2, 1);
+        for (String name : SccAlgorithm.names()) {
+            SccAlgorithm scc = SccAlgorithm.create(name, graph, new MetricsImpl());
+            scc.findComponents();
+
+            java.io.ByteArrayOutputStream buffer = new java.io.ByteArrayOutputStream();
+            scc.printResults(new java.io.PrintStream(buffer, true));
+
+            assertTrue(buffer.toString(), buffer.toString().contains("=== " + scc.getName() + " SCC Results ==="));
+            assertTrue(buffer.toString(), buffer.toString().contains("Number of SCCs: 2"));
+        }
+    }
+
+    @Test
+    public void testTrialRunner_ReportsStatsOverMeasuredRuns() {
+        TimingStats stats = TimingStats.of(new long[]{5_000_000, 1_000_000, 3_000_000, 2_000_000, 4_000_000});
+        assertEquals(1.0, stats.getMinMs(), 1e-9);
+        assertEquals(3.0, stats.getMedianMs(), 1e-9);
+        assertEquals(3.0, stats.getMeanMs(), 1e-9);
+        assertEquals(5.0, stats.getP90Ms(), 1e-9);
+        assertEquals(Math.sqrt(2.5), stats.getStdDevMs(), 1e-9);
+
+        Graph graph = new Graph(3, true);
+        graph.addEdge(0, 1, 1);
+        graph.addEdge(1, 2, 1);
+        MetricsImpl metrics = new MetricsImpl();
+        TarjanSCC tarjan = new TarjanSCC(graph, metrics);
+        int[] runs = new int[1];
+        TrialRunner.Trial<Components> trial = new TrialRunner(2, 5).run(metrics, () -> {
+            runs[0]++;
+            return tarjan.findComponents();
+        });
+
+        assertEquals(7, runs[0]);
+        assertEquals(5, trial.getStats().getCount());
+        assertEquals(3, trial.getResult().count());
+        assertEquals(3, metrics.getVisits());
+    }
+
+    @Test
+    public void testSccStrategies_AgreeWithTarjan() {
+        // Above ParallelSCC's sequential threshold (4096 nodes), so trimming
+        // and forward-backward splits run instead of its Tarjan fallback;
+        // clusters of 6000 give SCCs that FW-BW itself has to find
+        for (int componentSize : new int[]{7, 6000}) {
+            for (GraphGenerator.Shape shape : GraphGenerator.Shape.values()) {
+                Graph graph = new GraphGenerator(shape, 20_000, 60_000, 5)
+                        .setComponentSize(componentSize).generate();
+                Components expected = new TarjanSCC(graph, new MetricsImpl()).findComponents();
+                for (String name : SccAlgorithm.names()) {
+                    SccAlgorithm scc = SccAlgorithm.create(name, graph, new MetricsImpl());
+                    assertSamePartition(expected, scc.findComponents(), graph.getN());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSemiExternalSCC_MatchesCanonicalTarjan() {
+        // Budget 0 keeps every round in passes; the default hands the rest to Tarjan
+        Graph selfLoops = new Graph(3, true);
+        selfLoops.addEdge(2, 2, 1);
+        selfLoops.addEdge(2, 0, 1);
+        List<Graph> graphs = new ArrayList<>(Arrays.asList(new Graph(0, true), selfLoops));
+        for (GraphGenerator.Shape shape : GraphGenerator.Shape.values()) {
+            graphs.add(new GraphGenerator(shape, 20_000, 60_000, 5).setComponentSize(7).generate());
+        }
+        for (Graph graph : graphs) {
+            Components expected = new TarjanSCC(graph, new MetricsImpl()).findComponents().canonical();
+            for (long budget : new long[]{0, 1 << 20}) {
+                SemiExternalSCC scc = new SemiExternalSCC(graph, new MetricsImpl()).setResidualEdges(budget);
+                Components actual = scc.findComponents();
+                assertEquals(expected.count(), actual.count());
+                for (int v = 0; v < graph.getN(); v++) {
+                    assertEquals(expected.componentOf(v), actual.componentOf(v));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testOffHeapGraph_MatchesHeapResults() throws Exception {
+        GraphGenerator generator = new GraphGenerator(GraphGenerator.Shape.LAYERED, 2000, 8000, 9);
+        Graph heap = generator.generate();
+        Graph offHeap = heap.toOffHeap();
+        assertTrue(offHeap.isBufferBacked());
+        assertFalse(heap.isBufferBacked());
+        assertEquals(heap.getEdgeCount(), offHeap.getEdgeCount());
+        assertTrue(offHeap.getReverse().isBufferBacked());
+
+        assertSamePartition(new TarjanSCC(heap, new MetricsImpl()).findComponents(),
+                new KosarajuSCC(offHeap, new MetricsImpl()).findComponents(), heap.getN());
+        assertArrayEquals(new TopologicalSort(heap, new MetricsImpl()).sortOrder(),
+                new TopologicalSort(offHeap, new MetricsImpl()).sortOrder());
+
+        DAGLongestPath expected = new DAGLongestPath(heap, new MetricsImpl());
+        expected.computeLongestPaths(0);
+        DAGLongestPath actual = new DAGLongestPath(offHeap, new MetricsImpl());
+        actual.computeLongestPaths(0);
+        assertArrayEquals(expected.getDistances(), actual.getDistances());
+
+        // JSON loaded straight into direct buffers keeps every node's edge order
+        Path file = Files.createTempFile("offheap", ".json");
+        try {
+            generator.writeJson(file.toString());
+            Graph loaded = Graph.fromJsonOffHeap(file.toString());
+            assertTrue(loaded.isBufferBacked());
+            assertEquals(heap.getEdgeCount(), loaded.getEdgeCount());
+            for (int u = 0; u < heap.getN(); u++) {
+                assertEquals(heap.getEdges(u).size(), loaded.degree(u));
+                for (int i = 0; i < heap.degree(u); i++) {
+                    assertEquals(heap.target(heap.edgeStart(u) + i), loaded.target(loaded.edgeStart(u) + i));
+                    assertEquals(heap.weight(heap.edgeStart(u) + i), loaded.weight(loaded.edgeStart(u) + i));
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testDirectoryMode_PrintsEachGraphWholeAndInOrder() throws Exception {
+        Path dir = Files.createTempDirectory("dirmode");
+        Path data = Files.createDirectories(dir.resolve("data"));
+        try {
+            Files.write(data.resolve("a_dag.json"), ("{\"directed\": true, \"n\": 3, \"edges\": ["
+                    + "{\"u\": 0, \"v\": 1, \"w\": 2}, {\"u\": 1, \"v\": 2, \"w\": 3}],"
+                    + " \"source\": 0, \"weight_model\": \"edge\"}").getBytes());
+            Files.write(data.resolve("b_broken.json"), ("{\"directed\": true, \"n\": 2, \"edges\": ["
+                    + "{\"u\": 0, \"v\": 5, \"w\": 1}], \"source\": 0}").getBytes());
+            Files.write(data.resolve("c_cycle.json"), ("{\"directed\": true, \"n\": 3, \"edges\": ["
+                    + "{\"u\": 0, \"v\": 1, \"w\": 1}, {\"u\": 1, \"v\": 0, \"w\": 1},"
+                    + " {\"u\": 1, \"v\": 2, \"w\": 1}], \"source\": 0}").getBytes());
+
+            // Run in dir so the results files stay out of the working tree
+            String classPath = Arrays.stream(System.getProperty("java.class.path").split(java.io.File.pathSeparator))
+                    .map(entry -> Paths.get(entry).toAbsolutePath().toString())
+                    .collect(Collectors.joining(java.io.File.pathSeparator));
+            Process child = new ProcessBuilder(
+                    Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", classPath, "Main", "--workers=2", "--dir", data.toString())
+                    .directory(dir.toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(dir.resolve("child.log").toFile())
+                    .start();
+            // Returning at all means the worker pool was shut down
+            assertTrue("Directory mode did not exit", child.waitFor(60, TimeUnit.SECONDS));
+            String log = new String(Files.readAllBytes(dir.resolve("child.log")));
+            assertEquals(log, 0, child.exitValue());
+
+            // One block per file, in file order, each holding only its own graph
+            int a = log.indexOf("Processing: " + data.resolve("a_dag.json"));
+            int b = log.indexOf("Processing: " + data.resolve("b_broken.json"));
+            int c = log.indexOf("Processing: " + data.resolve("c_cycle.json"));
+            int end = log.indexOf("Processed 3 graphs with 2 workers");
+            assertTrue(log, 0 <= a && a < b && b < c && c < end);
+            String blockA = log.substring(a, b);
+            String blockB = log.substring(b, c);
+            String blockC = log.substring(c, end);
+            assertTrue(blockA, blockA.contains("Dataset: a_dag") && blockA.contains("Number of SCCs: 3"));
+            assertTrue(blockB, blockB.contains("IndexOutOfBoundsException"));
+            assertFalse(blockB, blockB.contains("Dataset:"));
+            assertTrue(blockC, blockC.contains("Dataset: c_cycle") && blockC.contains("Number of SCCs: 2"));
+            assertTrue(blockC, blockC.contains("Skipping shortest/longest path analysis"));
+
+            // The failed graph logs no rows; the other two do
+            List<String> rows = Files.readAllLines(dir.resolve("results").resolve("scc_results.csv"));
+            assertEquals(rows.toString(), 3, rows.size());
+            assertTrue(rows.toString(), rows.get(1).startsWith("a_dag,") || rows.get(2).startsWith("a_dag,"));
+            assertTrue(rows.toString(), rows.get(1).startsWith("c_cycle,") || rows.get(2).startsWith("c_cycle,"));
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    public void testExternalPipeline_MatchesInMemoryUnderSmallHeap() throws Exception {
+        // Both 36-48 MB on disk against a 32 MB heap: local SCCs, and tens of
+        // thousands of SCCs joined by random edges that random access cannot survive
+        GraphGenerator[] generators = {
+                new GraphGenerator(GraphGenerator.Shape.PLANTED_SCC, 200_000, 6_000_000, 17).setComponentSize(40),
+                new GraphGenerator(GraphGenerator.Shape.POWER_LAW, 600_000, 4_200_000, 17)
+        };
+        for (GraphGenerator generator : generators) {
+            Path dir = Files.createTempDirectory("external");
+            Path graphFile = dir.resolve("graph" + BinaryGraphFormat.EXTENSION);
+            Path workDir = dir.resolve("work");
+            try {
+                generator.writeBinary(graphFile.toString());
+                Process child = new ProcessBuilder(
+                        Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                        "-Xmx32m", "-cp", System.getProperty("java.class.path"),
+                        "Main", "--external", graphFile.toString(), workDir.toString())
+                        .redirectErrorStream(true)
+                        .redirectOutput(dir.resolve("child.log").toFile())
+                        .start();
+                int exitCode = child.waitFor();
+                String log = new String(Files.readAllBytes(dir.resolve("child.log")));
+                assertEquals(log, 0, exitCode);
+
+                Graph graph = BinaryGraphFormat.map(graphFile.toString());
+                Components components = new TarjanSCC(graph, new MetricsImpl()).findComponents().canonical();
+                Graph dag = new CondensationGraph(graph, components).getCondensation();
+                Graph externalDag = BinaryGraphFormat.map(
+                        workDir.resolve(ExternalPipeline.CONDENSATION_FILE).toString());
+
+                assertArrayEquals(components.getComponentOf(),
+                        ExternalPipeline.readInts(workDir.resolve(ExternalPipeline.COMPONENTS_FILE)));
+                assertEquals(dag.getEdgeCount(), externalDag.getEdgeCount());
+                for (int c = 0; c < dag.getN(); c++) {
+                    assertEquals(dag.edgeStart(c), externalDag.edgeStart(c));
+                }
+                for (int i = 0; i < dag.getEdgeCount(); i++) {
+                    assertEquals(dag.target(i), externalDag.target(i));
+                    assertEquals(dag.weight(i), externalDag.weight(i));
+                }
+                assertArrayEquals(new TopologicalSort(dag, new MetricsImpl()).sortOrder(),
+                        ExternalPipeline.readInts(workDir.resolve(ExternalPipeline.ORDER_FILE)));
+
+                // Sequential passes: few of them, each reading a block of
+                // targets at most once
+                java.util.regex.Matcher passes = java.util.regex.Pattern.compile("SCC passes: (\\d+)").matcher(log);
+                java.util.regex.Matcher reads = java.util.regex.Pattern.compile("Blocks read: SCC (\\d+)").matcher(log);
+                assertTrue(log, passes.find() && reads.find());
+                long targetBlocks = (4L * graph.getEdgeCount() + BinaryGraphFormat.BLOCK_BYTES - 1)
+                        / BinaryGraphFormat.BLOCK_BYTES;
+                assertTrue(log, Integer.parseInt(passes.group(1)) <= 30);
+                assertTrue(log, Long.parseLong(reads.group(1)) <= Integer.parseInt(passes.group(1)) * targetBlocks);
+            } finally {
+                try (Stream<Path> files = Files.walk(dir)) {
+                    files.sorted(Comparator.reverseOrder()).forEach(f -> f.toFile().delete());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testGraphQueryServer_AnswersPathComponentAndOrderQueries() throws Exception {
+        Graph dag = new GraphGenerator(GraphGenerator.Shape.LAYERED, 500, 3000, 7).generate();
+        Graph cyclic = new Graph(4, true);
+        cyclic.addEdge(0, 1, 1);
+        cyclic.addEdge(1, 2, 1);
+        cyclic.addEdge(2, 0, 1);
+        cyclic.addEdge(2, 3, 1);
+        cyclic.freeze();
+
+        GraphQueryServer server = new GraphQueryServer(4, 2);
+        server.addGraph("dag", dag);
+        server.addGraph("cyclic", cyclic);
+        server.start(0);
+        try {
+            assertNull("start() must not set JVM-wide properties", System.getProperty("sun.net.httpserver.nodelay"));
+            HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            String base = "http://localhost:" + server.getPort();
+            java.util.function.Function<String, HttpResponse<String>> get = path -> {
+                try {
+                    return http.send(HttpRequest.newBuilder(URI.create(base + path)).build(),
+                            HttpResponse.BodyHandlers.ofString());
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            };
+
+            DAGShortestPath sp = new DAGShortestPath(dag, new MetricsImpl());
+            sp.computeShortestPaths(0);
+            DAGLongestPath lp = new DAGLongestPath(dag, new MetricsImpl());
+            lp.computeLongestPaths(0);
+            for (int target = 0; target < dag.getN(); target += 37) {
+                String reply = get.apply("/shortest?graph=dag&source=0&target=" + target).body();
+                int d = sp.getDistances()[target];
+                assertTrue(reply, reply.contains("\"distance\":" + (d == Integer.MAX_VALUE ? "null" : d)));
+                reply = get.apply("/longest?graph=dag&source=0&target=" + target).body();
+                d = lp.getDistances()[target];
+                assertTrue(reply, reply.contains("\"distance\":" + (d == Integer.MIN_VALUE ? "null" : d)));
+            }
+
+            assertEquals("{\"node\":1,\"component\":1,\"size\":3,\"members\":[2,1,0]}",
+                    get.apply("/component?graph=cyclic&node=1").body());
+            assertTrue(get.apply("/order?graph=cyclic").body()
+                    .startsWith("{\"acyclic\":false,\"order\":[2,1,0,3]"));
+            assertEquals(400, get.apply("/shortest?graph=cyclic&source=0").statusCode());
+            assertEquals(400, get.apply("/component?graph=dag&node=500").statusCode());
+            assertEquals(404, get.apply("/order?graph=missing").statusCode());
+
+            String graphs = get.apply("/graphs").body();
+            assertTrue(graphs, graphs.contains("\"name\":\"dag\",\"nodes\":500"));
+            assertTrue(graphs, graphs.contains("\"cacheHits\":26,\"cacheMisses\":2"));
+
+            // Cached paths from source 0 must not survive a weight change
+            for (int i = 0; i < dag.getEdgeCount(); i++) {
+                dag.setWeight(i, 2 * dag.weight(i));
+            }
+            sp.computeShortestPaths(0);
+            for (int target = 0; target < dag.getN(); target += 37) {
+                String reply = get.apply("/shortest?graph=dag&source=0&target=" + target).body();
+                int d = sp.getDistances()[target];
+                assertTrue(reply, reply.contains("\"distance\":" + (d == Integer.MAX_VALUE ? "null" : d)));
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testReachabilityIndex_MatchesBfsForClosureAndLabels() {
+        Graph graph = new GraphGenerator(GraphGenerator.Shape.PLANTED_SCC, 600, 2400, 5)
+                .setComponentSize(3).generate();
+        CondensationGraph condensation = new CondensationGraph(graph,
+                new TarjanSCC(graph, new MetricsImpl()).findComponents());
+
+        ReachabilityIndex closure = new ReachabilityIndex(condensation);
+        ReachabilityIndex labels = new ReachabilityIndex(condensation, 0, 2, 9);
+        assertTrue(closure.isClosure());
+        assertFalse(labels.isClosure());
+
+        int n = graph.getN();
+        for (int a = 0; a < n; a++) {
+            boolean[] seen = new boolean[n];
+            Deque<Integer> queue = new ArrayDeque<>(List.of(a));
+            seen[a] = true;
+            while (!queue.isEmpty()) {
+                int u = queue.poll();
+                for (int i = graph.edgeStart(u); i < graph.edgeEnd(u); i++) {
+                    if (!seen[graph.target(i)]) {
+                        seen[graph.target(i)] = true;
+                        queue.add(graph.target(i));
+                    }
+                }
+            }
+            for (int b = 0; b < n; b++) {
+                assertEquals(a + " -> " + b, seen[b], closure.reaches(a, b));
+                assertEquals(a + " -> " + b, seen[b], labels.reaches(a, b));
+            }
+        }
+    }
+
+    @Test
+    public void testKBestPaths_MatchBruteForceEnumeration() {
+        Graph graph = new GraphGenerator(GraphGenerator.Shape.LAYERED, 40, 120, 3)
+                .setLayerWidth(5).generate();
+        // Every path from node 0, as (end node, weight), found by brute force
+        List<long[]> all = new ArrayList<>();
+        Deque<long[]> stack = new ArrayDeque<>();
+        stack.push(new long[]{0, 0});
+        while (!stack.isEmpty()) {
+            long[] top = stack.pop();
+            all.add(top);
+            int u = (int) top[0];
+            for (int i = graph.edgeStart(u); i < graph.edgeEnd(u); i++) {
+                stack.push(new long[]{graph.target(i), top[1] + graph.weight(i)});
+            }
+        }
+
+        for (MultiSourcePaths.PathType type : MultiSourcePaths.PathType.values()) {
+            KBestPaths kBest = new KBestPaths(graph, new MetricsImpl(), type);
+            kBest.compute(0);
+            Comparator<Long> better = type == MultiSourcePaths.PathType.SHORTEST
+                    ? Comparator.naturalOrder() : Comparator.reverseOrder();
+
+            int target = graph.getN() - 1;
+            List<Long> expected = all.stream().filter(p -> p[0] == target).map(p -> p[1])
+                    .sorted(better).limit(25).collect(Collectors.toList());
+            List<KBestPaths.RankedPath> found = kBest.paths(target, 25);
+            assertEquals(expected, found.stream().map(KBestPaths.RankedPath::getDistance)
+                    .collect(Collectors.toList()));
+
+            for (KBestPaths.RankedPath path : found) {
+                List<Integer> nodes = path.getNodes();
+                assertEquals(0, (int) nodes.get(0));
+                assertEquals(target, (int) nodes.get(nodes.size() - 1));
+                for (int j = 0; j + 1 < nodes.size(); j++) {
+                    int u = nodes.get(j);
+                    int v = nodes.get(j + 1);
+                    assertTrue(IntStream.range(graph.edgeStart(u), graph.edgeEnd(u))
+                            .anyMatch(i -> graph.target(i) == v));
+                }
+            }
+
+            List<Long> expectedChains = all.stream().filter(p -> graph.degree((int) p[0]) == 0)
+                    .map(p -> p[1]).sorted(better).limit(40).collect(Collectors.toList());
+            assertEquals(expectedChains, kBest.topPaths(40).stream()
+                    .map(KBestPaths.RankedPath::getDistance).collect(Collectors.toList()));
+        }
+
+        DAGLongestPath lp = new DAGLongestPath(graph, new MetricsImpl());
+        lp.computeLongestPaths(0);
+        KBestPaths longest = new KBestPaths(graph, new MetricsImpl(), MultiSourcePaths.PathType.LONGEST);
+        longest.compute(0);
+        assertEquals(lp.findCriticalPath()[0], longest.topPaths(1).get(0).getDistance());
+    }
+
+    @Test
+    public void testDynamicDAGPaths_RepairMatchesFullRecomputation() {
+        Graph graph = new GraphGenerator(GraphGenerator.Shape.LAYERED, 2000, 8000, 4)
+                .setLayerWidth(50).generate();
+        int[] order = new TopologicalSort(graph, new MetricsImpl()).sortOrder();
+        DynamicDAGPaths shortest = new DynamicDAGPaths(graph, new MetricsImpl(),
+                MultiSourcePaths.PathType.SHORTEST, 0);
+        DynamicDAGPaths longest = new DynamicDAGPaths(graph, new MetricsImpl(),
+                MultiSourcePaths.PathType.LONGEST, 0);
+        Random random = new Random(17);
+
+        for (int round = 0; round < 60; round++) {
+            int batch = round % 3 == 0 ? 20 : 1;
+            int[] edges = new int[batch];
+            int[] weights = new int[batch];
+            for (int j = 0; j < batch; j++) {
+                edges[j] = random.nextInt(graph.getEdgeCount());
+                weights[j] = 1 + random.nextInt(30);
+            }
+            shortest.updateWeights(edges, weights);
+            longest.updateWeights(edges, weights);
+            assertTrue(shortest.getLastAffected() < graph.getN());
+
+            DAGShortestPath sp = new DAGShortestPath(graph, new MetricsImpl());
+            sp.computeShortestPaths(0, order);
+            DAGLongestPath lp = new DAGLongestPath(graph, new MetricsImpl());
+            lp.computeLongestPaths(0, order);
+            assertArrayEquals(sp.getDistances(), shortest.getDistances());
+            assertArrayEquals(lp.getDistances(), longest.getDistances());
+        }
+
+        // Parents still describe paths of the reported length
+        for (int v = 0; v < graph.getN(); v += 97) {
+            List<Integer> path = shortest.reconstructPath(v);
+            if (path == null) {
+                continue;
+            }
+            int length = 0;
+            for (int j = 0; j + 1 < path.size(); j++) {
+                int u = path.get(j);
+                int w = path.get(j + 1);
+                length += IntStream.range(graph.edgeStart(u), graph.edgeEnd(u))
+                        .filter(i -> graph.target(i) == w).map(graph::weight).min().getAsInt();
+            }
+            assertEquals(shortest.getDistances()[v], length);
+        }
+    }
+
+    @Test
+    public void testDagExecutor_RunsComponentsAfterPredecessorsConcurrently() throws Exception {
+        Graph graph = new GraphGenerator(GraphGenerator.Shape.PLANTED_SCC, 300, 900, 8)
+                .setComponentSize(4).generate();
+        CondensationGraph condensation = new CondensationGraph(graph,
+                new TarjanSCC(graph, new MetricsImpl()).findComponents());
+        int n = graph.getN();
+        AtomicInteger clock = new AtomicInteger();
+        int[] started = new int[n];
+        int[] finished = new int[n];
+
+        ExecutorService pool = new ForkJoinPool(4);
+        try {
+            DagExecutor executor = new DagExecutor(condensation, pool);
+            DagExecutor.Report report = executor.run(v -> {
+                started[v] = clock.incrementAndGet();
+                finished[v] = clock.incrementAndGet();
+            });
+            assertEquals(n, report.getTasks());
+            assertEquals(2 * n, clock.get());
+
+            // Every edge between components is respected
+            int[] componentOf = condensation.getMapping();
+            for (int u = 0; u < n; u++) {
+                for (int i = graph.edgeStart(u); i < graph.edgeEnd(u); i++) {
+                    int v = graph.target(i);
+                    if (componentOf[u] != componentOf[v]) {
+                        assertTrue(finished[u] < started[v]);
+                    }
+                }
+            }
+
+            // Independent tasks overlap: none gets past the latch until two
+            // of them are running at once
+            Graph independent = new Graph(40, true);
+            CondensationGraph flat = new CondensationGraph(independent,
+                    new TarjanSCC(independent, new MetricsImpl()).findComponents());
+            ExecutorService wide = Executors.newFixedThreadPool(8);
+            CountDownLatch together = new CountDownLatch(2);
+            AtomicInteger overlapped = new AtomicInteger();
+            try {
+                DagExecutor.Report concurrent = new DagExecutor(flat, wide).run(v -> {
+                    together.countDown();
+                    try {
+                        if (together.await(10, TimeUnit.SECONDS)) {
+                            overlapped.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                assertEquals(40, overlapped.get());
+                assertTrue(concurrent.getPeakConcurrency() >= 2);
+                assertTrue(concurrent.getCriticalPathMs() <= concurrent.getWallMs());
+            } finally {
+                wide.shutdown();
+            }
+
+            // The first failure is rethrown and later components are skipped
+            int[] order = new TopologicalSort(condensation.getCondensation(), new MetricsImpl()).sortOrder();
+            int failing = condensation.getComponents().member(condensation.getComponents().memberStart(order[0]));
+            AtomicInteger ran = new AtomicInteger();
+            try {
+                executor.run(v -> {
+                    if (v == failing) {
+                        throw new IllegalArgumentException("boom");
+                    }
+                    ran.incrementAndGet();
+                });
+                fail("Expected the task failure to be rethrown");
+            } catch (IllegalStateException e) {
+                assertEquals("boom", e.getCause().getMessage());
+                assertTrue(e.getMessage().contains(String.valueOf(failing)));
+            }
+            assertTrue(ran.get() < n);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(timeout = 30_000)
+    public void testDagExecutor_RejectedJobFailsTheRun() throws Exception {
+        Graph graph = new GraphGenerator(GraphGenerator.Shape.LAYERED, 200, 600, 3).generate();
+        CondensationGraph condensation = new CondensationGraph(graph,
+                new TarjanSCC(graph, new MetricsImpl()).findComponents());
+
+        // The first task shuts the pool down, so every later job is rejected
+        ExecutorService closing = Executors.newSingleThreadExecutor();
+        AtomicInteger ran = new AtomicInteger();
+        try {
+            new DagExecutor(condensation, closing).run(v -> {
+                ran.incrementAndGet();
+                closing.shutdown();
+            });
+            fail("Expected the rejected job to fail the run");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        } finally {
+            closing.shutdown();
+        }
+        assertTrue(ran.get() < graph.getN());
+    }
+}